@@ -0,0 +1,146 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.AsyncBigDataClient;
+import com.db.dataplatform.techtest.server.component.BigDataClient;
+import com.db.dataplatform.techtest.server.component.HadoopClientMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to push {@code pushes} envelopes to a Hadoop stand-in that takes {@code workMs} per call, with the
+ * blocking {@link BigDataClient} on as many threads as the outbox dispatcher has workers, and with the
+ * {@link AsyncBigDataClient} on its I/O threads. The blocking client needs {@code pushes / blockingThreads}
+ * round trips, the async one keeps every push in flight at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class AsyncHadoopPushBenchmark {
+
+    @Param({"blocking", "async"})
+    public String client;
+
+    @Param({"400"})
+    public int pushes;
+
+    @Param({"200"})
+    public int workMs;
+
+    @Param({"4"})
+    public int blockingThreads;
+
+    @Param({"2"})
+    public int ioThreads;
+
+    private HadoopStandIn hadoopStandIn;
+    private BigDataClient bigDataClient;
+    private AsyncBigDataClient asyncBigDataClient;
+    private ExecutorService blockingExecutor;
+    private DataEnvelope envelope;
+
+    @Setup(Level.Trial)
+    public void startHadoopServer() throws IOException {
+        hadoopStandIn = HadoopStandIn.start(workMs);
+        envelope = BenchmarkData.envelope("BENCH-ASYNC", BenchmarkData.body(1000));
+
+        if ("async".equals(client)) {
+            startAsyncClient();
+        } else {
+            startBlockingClient();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHadoopServer() throws IOException {
+        if (asyncBigDataClient != null) {
+            asyncBigDataClient.stop();
+        }
+        if (blockingExecutor != null) {
+            blockingExecutor.shutdownNow();
+        }
+        hadoopStandIn.close();
+    }
+
+    @Benchmark
+    public void pushAll() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(pushes);
+        for (int i = 0; i < pushes; i++) {
+            futures.add(asyncBigDataClient != null
+                    ? asyncBigDataClient.pushBigData(envelope)
+                    : CompletableFuture.runAsync(this::pushBlocking, blockingExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void pushBlocking() {
+        try {
+            bigDataClient.pushBigData(envelope);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void startAsyncClient() throws IOReactorException {
+        HadoopClientMetrics hadoopClientMetrics = new HadoopClientMetrics(new SimpleMeterRegistry());
+        asyncBigDataClient = new AsyncBigDataClient(new WireFormats(Jackson2ObjectMapperBuilder::new),
+                hadoopClientMetrics, createBigDataClient(hadoopClientMetrics));
+        asyncBigDataClient.bigDataServer = hadoopStandIn.getServerUrl();
+        asyncBigDataClient.maxAttempts = 3;
+        asyncBigDataClient.initialBackoffMs = 500;
+        asyncBigDataClient.backoffMultiplier = 3;
+        asyncBigDataClient.maxInFlight = pushes;
+        asyncBigDataClient.ioThreads = ioThreads;
+        asyncBigDataClient.connectTimeoutMs = 1000;
+        asyncBigDataClient.readTimeoutMs = 5000;
+        asyncBigDataClient.wireFormat = WireFormatEnum.JSON;
+        asyncBigDataClient.start();
+    }
+
+    private void startBlockingClient() {
+        bigDataClient = createBigDataClient(new HadoopClientMetrics(new SimpleMeterRegistry()));
+        blockingExecutor = Executors.newFixedThreadPool(blockingThreads);
+    }
+
+    private BigDataClient createBigDataClient(HadoopClientMetrics hadoopClientMetrics) {
+        BigDataClient bigDataClient = new BigDataClient(new RestTemplateBuilder().build(),
+                new SimpleClientHttpRequestFactory(), new WireFormats(Jackson2ObjectMapperBuilder::new), hadoopClientMetrics);
+        bigDataClient.bigDataServer = hadoopStandIn.getServerUrl();
+        bigDataClient.maxAttempts = 3;
+        bigDataClient.initialBackoffMs = 500;
+        bigDataClient.backoffMultiplier = 3;
+        bigDataClient.failureThreshold = 3;
+        bigDataClient.openTimeoutMs = 5000;
+        bigDataClient.resetTimeoutMs = 20000;
+        bigDataClient.wireFormat = WireFormatEnum.JSON;
+        bigDataClient.start();
+        return bigDataClient;
+    }
+}
@@ -0,0 +1,96 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * Compares persisting envelopes one transaction at a time with the batch path, per envelope, and with
+ * pushing envelopes already stored again, which is answered as a duplicate from the name index.
+ * All paths run against the embedded H2 database; HTTP and JSON costs are not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BatchIngestBenchmark {
+
+    private static final int ENVELOPES_PER_INVOCATION = 500;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private Server server;
+    private List<DataEnvelope> envelopes;
+    private List<DataEnvelope> storedEnvelopes;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        context = BenchmarkApplication.start();
+        server = context.getBean(Server.class);
+        storedEnvelopes = new ArrayList<>(ENVELOPES_PER_INVOCATION);
+        for (int i = 0; i < ENVELOPES_PER_INVOCATION; i++) {
+            DataHeader dataHeader = new DataHeader("STORED-" + i, BlockTypeEnum.BLOCKTYPEA);
+            storedEnvelopes.add(new DataEnvelope(dataHeader, new DataBody(DUMMY_DATA), MD5_CHECKSUM));
+        }
+        server.saveDataEnvelopes(storedEnvelopes);
+    }
+
+    @Setup(Level.Invocation)
+    public void createEnvelopes() {
+        envelopes = new ArrayList<>(ENVELOPES_PER_INVOCATION);
+        for (int i = 0; i < ENVELOPES_PER_INVOCATION; i++) {
+            DataHeader dataHeader = new DataHeader("BENCH-" + sequence.incrementAndGet(), BlockTypeEnum.BLOCKTYPEA);
+            envelopes.add(new DataEnvelope(dataHeader, new DataBody(DUMMY_DATA), MD5_CHECKSUM));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENVELOPES_PER_INVOCATION)
+    public void singleEnvelopePerTransaction(Blackhole blackhole) throws Exception {
+        for (DataEnvelope envelope : envelopes) {
+            blackhole.consume(server.saveDataEnvelope(envelope));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENVELOPES_PER_INVOCATION)
+    public void duplicateEnvelopePerTransaction(Blackhole blackhole) throws Exception {
+        for (DataEnvelope envelope : storedEnvelopes) {
+            blackhole.consume(server.saveDataEnvelope(envelope));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENVELOPES_PER_INVOCATION)
+    public List<PushDataResult> batchTransaction() throws Exception {
+        return server.saveDataEnvelopes(envelopes);
+    }
+}
@@ -0,0 +1,53 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Boots the server application in-process for benchmarks, without the demo client flow and the
+ * background Hadoop dispatcher, so only the code path under measurement touches the database.
+ */
+public final class BenchmarkApplication {
+
+    private static final String[] DEFAULT_PROPERTIES = {
+            "techtest.demo-flow.enabled=false",
+            "outbox.dispatcher.enabled=false",
+            "logging.level.root=WARN"
+    };
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param properties overrides in {@code name=value} form, taking precedence over application.properties.
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        return start(WebApplicationType.NONE, new Class<?>[0], properties);
+    }
+
+    /**
+     * @param sources    further bean definitions, e.g. stand-ins taking precedence as {@code @Primary} beans.
+     *                   They must not be annotated as components, or the other benchmarks would scan them too.
+     * @param properties overrides in {@code name=value} form, taking precedence over application.properties
+     *                   and over the defaults above.
+     */
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, Class<?>[] sources,
+                                                       String... properties) {
+        Map<String, String> arguments = new LinkedHashMap<>();
+        for (String property : DEFAULT_PROPERTIES) {
+            arguments.put(property.substring(0, property.indexOf('=')), property);
+        }
+        for (String property : properties) {
+            arguments.put(property.substring(0, property.indexOf('=')), property);
+        }
+        return new SpringApplicationBuilder(TechTestApplication.class)
+                .sources(sources)
+                .web(webApplicationType)
+                .run(arguments.values().stream().map(p -> "--" + p).toArray(String[]::new));
+    }
+}
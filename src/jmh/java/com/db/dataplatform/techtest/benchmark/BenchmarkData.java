@@ -0,0 +1,50 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+
+import java.util.Random;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private BenchmarkData() {
+    }
+
+    static String body(int size) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Meter readings as JSON lines, repetitive like the payloads we receive.
+     */
+    static String records(int size) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size + 100);
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append("{\"meter\":\"M-").append(1000 + random.nextInt(50))
+                    .append("\",\"seq\":").append(i)
+                    .append(",\"kWh\":").append(random.nextInt(10000) / 100.0)
+                    .append(",\"status\":\"OK\"}\n");
+        }
+        return builder.substring(0, size);
+    }
+
+    static DataEnvelope envelope(String name, String body) {
+        String checksum = new ChecksumCalculator().checksum(body, ChecksumAlgorithmEnum.DEFAULT);
+        return new DataEnvelope(new DataHeader(name, BlockTypeEnum.BLOCKTYPEA), new DataBody(body), checksum);
+    }
+}
@@ -0,0 +1,67 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import org.apache.commons.codec.binary.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one body checksum per algorithm and body size. {@link LegacyMd5} is the previous per-call
+ * {@code MessageDigest.getInstance("MD5")} implementation, as baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChecksumBenchmark {
+
+    @Param({"MD5", "SHA256", "CRC32C", "XXHASH32"})
+    public ChecksumAlgorithmEnum algorithm;
+
+    @Param({"64", "1000", "65536", "1048576"})
+    public int bodySize;
+
+    private final ChecksumCalculator checksumCalculator = new ChecksumCalculator();
+    private String body;
+
+    @Setup
+    public void createBody() {
+        body = BenchmarkData.body(bodySize);
+    }
+
+    @Benchmark
+    public String checksum() {
+        return checksumCalculator.checksum(body, algorithm);
+    }
+
+    @State(Scope.Thread)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public static class LegacyMd5 {
+
+        @Param({"64", "1000", "65536", "1048576"})
+        public int bodySize;
+
+        private String body;
+
+        @Setup
+        public void createBody() {
+            body = BenchmarkData.body(bodySize);
+        }
+
+        @Benchmark
+        public String checksum() throws NoSuchAlgorithmException {
+            return Hex.encodeHexString(MessageDigest.getInstance("MD5").digest(body.getBytes()));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.persistence.BodyCodecEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of one stored data body per codec. {@code records} bodies are JSON lines as we
+ * receive them, {@code random} bodies are random alphanumerics. The size the body takes in the DATA_BODY
+ * column is printed at the end of each trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataBodyCodecBenchmark {
+
+    @Param({"NONE", "DEFLATE"})
+    public BodyCodecEnum codec;
+
+    @Param({"records", "random"})
+    public String content;
+
+    @Param({"1000"})
+    public int bodySize;
+
+    private String body;
+    private byte[] encoded;
+
+    @Setup
+    public void createBody() {
+        body = "records".equals(content) ? BenchmarkData.records(bodySize) : BenchmarkData.body(bodySize);
+        encoded = codec.encode(body);
+    }
+
+    @TearDown
+    public void reportStoredSize() {
+        System.out.printf("%n%s body of %d chars stored with %s in %d bytes, ratio %.2f%n",
+                content, bodySize, codec, encoded.length, (double) encoded.length / bodySize);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return codec.encode(body);
+    }
+
+    @Benchmark
+    public String decode() {
+        return codec.decode(encoded);
+    }
+}
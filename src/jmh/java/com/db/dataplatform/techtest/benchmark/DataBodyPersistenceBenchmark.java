@@ -0,0 +1,86 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.service.impl.DataBodyServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code DataBodyServiceImpl.saveDataBody} against the embedded H2 database: one header and body insert
+ * in its own transaction, and {@code getDataByBlockTypeAfter} reading a page of {@code pageSize} of the
+ * {@code storedBodies} bodies back.
+ * Bodies are limited to the 1000 characters the DATA_BODY column took before it was compressed.
+ * All bodies are identical, so every save after the first only references the stored content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataBodyPersistenceBenchmark {
+
+    @Param({"64", "1000"})
+    public int bodySize;
+
+    @Param({"records", "random"})
+    public String content;
+
+    @Param({"10000"})
+    public int storedBodies;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final DataEnvelopeMapper dataEnvelopeMapper = new DataEnvelopeMapper();
+
+    private ConfigurableApplicationContext context;
+    private DataBodyServiceImpl dataBodyService;
+    private String body;
+    private DataBodyEntity dataBodyEntity;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        context = BenchmarkApplication.start();
+        dataBodyService = context.getBean(DataBodyServiceImpl.class);
+        body = "records".equals(content) ? BenchmarkData.records(bodySize) : BenchmarkData.body(bodySize);
+        for (int i = 0; i < storedBodies; i++) {
+            dataBodyService.saveDataBody(dataEnvelopeMapper.toEntity(BenchmarkData.envelope("READ-" + i, body)));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createEntity() {
+        DataEnvelope envelope = BenchmarkData.envelope("BENCH-" + sequence.incrementAndGet(), body);
+        dataBodyEntity = dataEnvelopeMapper.toEntity(envelope);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+    }
+
+    @Benchmark
+    public void saveDataBody() {
+        dataBodyService.saveDataBody(dataBodyEntity);
+    }
+
+    @Benchmark
+    public List<DataBodyEntity> readPage() {
+        return dataBodyService.getDataByBlockTypeAfter(BlockTypeEnum.BLOCKTYPEA, 0, pageSize);
+    }
+}
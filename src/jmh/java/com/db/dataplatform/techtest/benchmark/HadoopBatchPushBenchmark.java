@@ -0,0 +1,100 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.BigDataClient;
+import com.db.dataplatform.techtest.server.component.HadoopClientMetrics;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envelopes pushed per second by {@link BigDataClient} for a range of batch sizes, with as many threads as
+ * the outbox dispatcher has workers. The Hadoop stand-in costs {@code workMs} per call whatever the payload,
+ * like the real backend, so the {@code envelopes} counter should grow roughly with the batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class HadoopBatchPushBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int batchSize;
+
+    @Param({"50"})
+    public int workMs;
+
+    private HadoopStandIn hadoopStandIn;
+    private BigDataClient bigDataClient;
+    private List<DataEnvelope> batch;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Pushed {
+
+        public long envelopes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            envelopes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startHadoopServer() throws IOException {
+        hadoopStandIn = HadoopStandIn.start(workMs);
+
+        bigDataClient = new BigDataClient(new RestTemplateBuilder().build(), new SimpleClientHttpRequestFactory(),
+                new WireFormats(Jackson2ObjectMapperBuilder::new), new HadoopClientMetrics(new SimpleMeterRegistry()));
+        bigDataClient.bigDataServer = hadoopStandIn.getServerUrl();
+        bigDataClient.maxAttempts = 3;
+        bigDataClient.initialBackoffMs = 500;
+        bigDataClient.backoffMultiplier = 3;
+        bigDataClient.failureThreshold = 3;
+        bigDataClient.openTimeoutMs = 5000;
+        bigDataClient.resetTimeoutMs = 20000;
+        bigDataClient.wireFormat = WireFormatEnum.JSON;
+        bigDataClient.start();
+
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(BenchmarkData.envelope("BENCH-BATCH-" + i, BenchmarkData.body(1000)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHadoopServer() {
+        hadoopStandIn.close();
+    }
+
+    @Benchmark
+    public void push(Pushed pushed) throws HadoopClientException {
+        if (batchSize == 1) {
+            bigDataClient.pushBigData(batch.get(0));
+        } else {
+            bigDataClient.pushBigDataBatch(batch);
+        }
+        pushed.envelopes += batchSize;
+    }
+}
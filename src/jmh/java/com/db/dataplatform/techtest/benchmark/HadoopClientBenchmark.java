@@ -0,0 +1,85 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.client.RestTemplateConfiguration;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent pushes to a stand-in for the dummy Hadoop endpoint, comparing the rest template Spring Boot
+ * builds by default (HttpClient with system defaults: 5 connections per route, no timeouts) with the
+ * pooled rest template of {@link RestTemplateConfiguration}.
+ * <p>
+ * The stand-in answers after {@code workMs} instead of the 2 to 4 seconds of the real dummy controller,
+ * so the run measures connection handling rather than sleeping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class HadoopClientBenchmark {
+
+    @Param({"default", "pooled"})
+    public String client;
+
+    @Param({"20"})
+    public int workMs;
+
+    private HadoopStandIn hadoopStandIn;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private String pushUrl;
+    private DataEnvelope envelope;
+
+    @Setup(Level.Trial)
+    public void startHadoopServer() throws IOException {
+        hadoopStandIn = HadoopStandIn.start(workMs);
+        pushUrl = hadoopStandIn.getServerUrl() + "/pushbigdata";
+        envelope = BenchmarkData.envelope("BENCH-HADOOP", BenchmarkData.body(1000));
+
+        if ("pooled".equals(client)) {
+            RestTemplateConfiguration configuration = new RestTemplateConfiguration();
+            configuration.maxTotal = 50;
+            configuration.maxPerRoute = 20;
+            configuration.connectTimeoutMs = 1000;
+            configuration.readTimeoutMs = 5000;
+            configuration.connectionRequestTimeoutMs = 1000;
+            configuration.keepAliveMs = 30000;
+            configuration.idleEvictionMs = 30000;
+            configuration.validateAfterInactivityMs = 2000;
+            httpClient = configuration.httpClient(configuration.httpClientConnectionManager());
+            restTemplate = configuration.createRestTemplate(new RestTemplateBuilder(), httpClient);
+        } else {
+            restTemplate = new RestTemplateBuilder().build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopHadoopServer() throws IOException {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        hadoopStandIn.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<String> pushBigData() {
+        return restTemplate.postForEntity(pushUrl, envelope, String.class);
+    }
+}
@@ -0,0 +1,58 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for the dummy Hadoop endpoint: accepts any payload on {@code /hadoopserver/pushbigdata}
+ * and answers 200 after a fixed delay, whatever the size of the payload. Responses are sent from a scheduler,
+ * so the stand-in itself does not limit the number of concurrent calls.
+ */
+final class HadoopStandIn implements AutoCloseable {
+
+    private static final String PUSH_PATH = "/hadoopserver/pushbigdata";
+
+    private final HttpServer httpServer;
+    private final ScheduledExecutorService executor;
+
+    private HadoopStandIn(HttpServer httpServer, ScheduledExecutorService executor) {
+        this.httpServer = httpServer;
+        this.executor = executor;
+    }
+
+    static HadoopStandIn start(long workMs) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+        httpServer.setExecutor(executor);
+        httpServer.createContext(PUSH_PATH, exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                while (body.read() != -1) {
+                    // drain the request so the connection can be reused
+                }
+            }
+            executor.schedule(() -> {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return null;
+            }, workMs, TimeUnit.MILLISECONDS);
+        });
+        httpServer.start();
+        return new HadoopStandIn(httpServer, executor);
+    }
+
+    String getServerUrl() {
+        return "http://localhost:" + httpServer.getAddress().getPort() + "/hadoopserver";
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,76 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TechTestApplication.MD5_CHECKSUM;
+
+/**
+ * Insert throughput of the batch ingest path for different id block sizes. A block size of 1 is the
+ * previous one-sequence-call-per-row behaviour.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdAllocationBenchmark {
+
+    private static final int ENVELOPES_PER_INVOCATION = 500;
+
+    @Param({"1", "50", "500"})
+    public int blockSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private Server server;
+    private List<DataEnvelope> envelopes;
+
+    @Setup(Level.Trial)
+    public void startServer() {
+        context = BenchmarkApplication.start(PooledSequenceGenerator.BLOCK_SIZE_SETTING + "=" + blockSize);
+        server = context.getBean(Server.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createEnvelopes() {
+        envelopes = new ArrayList<>(ENVELOPES_PER_INVOCATION);
+        for (int i = 0; i < ENVELOPES_PER_INVOCATION; i++) {
+            DataHeader dataHeader = new DataHeader("BENCH-" + sequence.incrementAndGet(), BlockTypeEnum.BLOCKTYPEA);
+            envelopes.add(new DataEnvelope(dataHeader, new DataBody(DUMMY_DATA), MD5_CHECKSUM));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENVELOPES_PER_INVOCATION)
+    public List<PushDataResult> insertBatch() throws Exception {
+        return server.saveDataEnvelopes(envelopes);
+    }
+}
@@ -0,0 +1,194 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.component.Server;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time to serve {@code connections} concurrent {@code /pushdata} requests against the running server, where
+ * saving an envelope takes {@code workMs} longer than it does on the in-memory database. Synchronously every
+ * request holds one of the {@code tomcatThreads} container threads while it is saved; asynchronously the
+ * container threads only hand the request to the ingest executor, which saves up to {@code ingestThreads}
+ * envelopes at once. {@code virtual} runs the ingest executor on virtual threads and falls back to the thread
+ * pool on JDKs without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class IngestCapacityBenchmark {
+
+    @Param({"sync", "async", "virtual"})
+    public String mode;
+
+    @Param({"256"})
+    public int connections;
+
+    @Param({"200"})
+    public int workMs;
+
+    @Param({"8"})
+    public int tomcatThreads;
+
+    @Param({"64"})
+    public int ingestThreads;
+
+    private ConfigurableApplicationContext context;
+    private CloseableHttpAsyncClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private String pushDataUrl;
+    private String body;
+    private byte[][] envelopes;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET, new Class<?>[]{SlowServer.class},
+                "server.port=0",
+                "server.tomcat.threads.max=" + tomcatThreads,
+                "server.tomcat.threads.min-spare=" + tomcatThreads,
+                "ingest.async.enabled=" + !"sync".equals(mode),
+                "ingest.async.virtual-threads=" + "virtual".equals(mode),
+                "ingest.async.threads=" + ingestThreads,
+                "ingest.async.queue-capacity=" + connections,
+                "benchmark.work-ms=" + workMs);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        pushDataUrl = "http://localhost:" + port + "/dataserver/pushdata";
+        body = BenchmarkData.body(1000);
+
+        httpClient = HttpAsyncClients.custom()
+                .setMaxConnTotal(connections)
+                .setMaxConnPerRoute(connections)
+                .build();
+        httpClient.start();
+    }
+
+    /**
+     * Names are unique across invocations, so every push is stored rather than answered as a duplicate.
+     */
+    @Setup(Level.Invocation)
+    public void prepareEnvelopes() throws IOException {
+        envelopes = new byte[connections][];
+        for (int i = 0; i < connections; i++) {
+            envelopes[i] = objectMapper.writeValueAsBytes(
+                    BenchmarkData.envelope("BENCH-CAPACITY-" + sequence.incrementAndGet(), body));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        httpClient.close();
+        context.close();
+    }
+
+    @Benchmark
+    public void pushConcurrently(Responses responses) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(connections);
+        for (int i = 0; i < connections; i++) {
+            HttpPost request = new HttpPost(pushDataUrl);
+            request.setEntity(new ByteArrayEntity(envelopes[i], ContentType.APPLICATION_JSON));
+            httpClient.execute(request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    if (response.getStatusLine().getStatusCode() < 300) {
+                        responses.accepted.incrementAndGet();
+                    } else {
+                        responses.rejected.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    responses.rejected.incrementAndGet();
+                    done.countDown();
+                }
+
+                @Override
+                public void cancelled() {
+                    done.countDown();
+                }
+            });
+        }
+        done.await(1, TimeUnit.MINUTES);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Responses {
+
+        private final AtomicInteger accepted = new AtomicInteger();
+        private final AtomicInteger rejected = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            accepted.set(0);
+            rejected.set(0);
+        }
+
+        public int accepted() {
+            return accepted.get();
+        }
+
+        public int rejected() {
+            return rejected.get();
+        }
+    }
+
+    /**
+     * Stands in for a database that takes {@code benchmark.work-ms} per insert. Registered as a source rather
+     * than a component, so it only replaces the server of this benchmark.
+     */
+    public static class SlowServer {
+
+        @Bean
+        @Primary
+        public Server slowServer(@Qualifier("serverImpl") Server server, @Value("${benchmark.work-ms}") long workMs) {
+            return (Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[]{Server.class},
+                    (proxy, method, args) -> {
+                        if ("saveDataEnvelope".equals(method.getName())) {
+                            Thread.sleep(workMs);
+                        }
+                        try {
+                            return method.invoke(server, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
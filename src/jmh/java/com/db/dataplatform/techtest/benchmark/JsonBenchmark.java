@@ -0,0 +1,50 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization and deserialization of a server {@link DataEnvelope}, with the object mapper
+ * configured the way Spring MVC configures it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonBenchmark {
+
+    @Param({"64", "1000", "65536"})
+    public int bodySize;
+
+    private ObjectMapper objectMapper;
+    private DataEnvelope envelope;
+    private byte[] json;
+
+    @Setup
+    public void createEnvelope() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        envelope = BenchmarkData.envelope("BENCH-JSON", BenchmarkData.body(bodySize));
+        json = objectMapper.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public DataEnvelope deserialize() throws IOException {
+        return objectMapper.readValue(json, DataEnvelope.class);
+    }
+}
@@ -0,0 +1,368 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Load and soak driver, run with {@code ./gradlew loadTest}. Boots the server in-process on a free port, with the
+ * outbox dispatcher pushing to a local {@link HadoopStandIn}, and drives {@code /pushdata},
+ * {@code /data/{blockType}} and {@code /update/{name}/{newBlockType}} over HTTP in a weighted mix.
+ * <p>
+ * Requests are issued open-loop at {@code load.rate} per second with at most {@code load.concurrency} in flight.
+ * Latency is measured from the time a request was due rather than from when it was sent, so a server that
+ * falls behind shows in the percentiles instead of slowing the driver down. Requests still due when the run
+ * is over are not sent but counted. A rate of 0 runs closed-loop, as fast as the in-flight limit allows.
+ * <p>
+ * Settings are read from system properties; {@code ./gradlew loadTest -Dload.rate=2000} passes them on:
+ * <ul>
+ * <li>{@code load.rate}: requests per second, 500 by default</li>
+ * <li>{@code load.concurrency}: requests in flight at most, 64 by default</li>
+ * <li>{@code load.mix}: weights per operation, {@code PUSH=80,QUERY=10,UPDATE=10} by default</li>
+ * <li>{@code load.body-sizes}: weights per pushed body size in chars, {@code 1000=80,10000=15,100000=5} by
+ * default</li>
+ * <li>{@code load.query-limit}: page size of the queries, 100 by default; 0 streams the whole block type</li>
+ * <li>{@code load.warmup-s}, {@code load.duration-s}: excluded warmup and measured run, 10 and 60 by default</li>
+ * <li>{@code load.report-interval-s}: interval of the progress lines, 10 by default</li>
+ * <li>{@code load.hadoop-work-ms}: response time of the Hadoop stand-in, 5 by default</li>
+ * <li>{@code load.histogram-log}: file the interval histograms are written to in HdrHistogram log format,
+ * tagged by operation, for soak runs; not written by default</li>
+ * </ul>
+ * The summary prints throughput, p50/p90/p99/p99.9 and the full percentile distribution per operation, in
+ * milliseconds.
+ */
+public final class LoadDriver {
+
+    private static final int REMEMBERED_NAMES = 10_000;
+
+    private final long rate = Long.getLong("load.rate", 500);
+    private final int concurrency = Integer.getInteger("load.concurrency", 64);
+    private final int queryLimit = Integer.getInteger("load.query-limit", 100);
+    private final long warmupSeconds = Long.getLong("load.warmup-s", 10);
+    private final long durationSeconds = Long.getLong("load.duration-s", 60);
+    private final long reportIntervalSeconds = Long.getLong("load.report-interval-s", 10);
+    private final long hadoopWorkMs = Long.getLong("load.hadoop-work-ms", 5);
+    private final String histogramLog = System.getProperty("load.histogram-log");
+    private final WeightedChoice<Operation> mix = WeightedChoice.parse(
+            System.getProperty("load.mix", "PUSH=80,QUERY=10,UPDATE=10"), name -> Operation.valueOf(name.toUpperCase()));
+    private final WeightedChoice<Integer> bodySizes =
+            WeightedChoice.parse(System.getProperty("load.body-sizes", "1000=80,10000=15,100000=5"), Integer::valueOf);
+
+    private final Map<Operation, Meters> meters = new EnumMap<>(Operation.class);
+    private final Map<Integer, String> bodies = new HashMap<>();
+    private final AtomicReferenceArray<String> pushedNames = new AtomicReferenceArray<>(REMEMBERED_NAMES);
+    private final AtomicLong pushed = new AtomicLong();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random = new Random(42);
+    private final Semaphore inFlight = new Semaphore(concurrency);
+
+    private CloseableHttpAsyncClient httpClient;
+    private String dataServer;
+    private HistogramLogWriter histogramLogWriter;
+    private volatile long measuredFrom;
+    private long sequence;
+
+    private LoadDriver() {
+        for (Operation operation : Operation.values()) {
+            meters.put(operation, new Meters());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver().run();
+    }
+
+    private void run() throws Exception {
+        for (int size : bodySizes.values.values()) {
+            bodies.put(size, BenchmarkData.body(size));
+        }
+        try (HadoopStandIn hadoop = HadoopStandIn.start(hadoopWorkMs);
+             ConfigurableApplicationContext context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                     new Class<?>[0],
+                     "server.port=0",
+                     "bigdata.server=" + hadoop.getServerUrl(),
+                     "outbox.dispatcher.enabled=true");
+             CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                     .setMaxConnTotal(concurrency)
+                     .setMaxConnPerRoute(concurrency)
+                     .build()) {
+            httpClient = client;
+            httpClient.start();
+            dataServer = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                    + "/dataserver";
+            if (histogramLog != null) {
+                histogramLogWriter = startHistogramLog();
+            }
+            System.out.printf("Driving %s at %s with %d in flight, mix %s, body sizes %s%n", dataServer,
+                    rate > 0 ? rate + " requests/s" : "full speed", concurrency, mix, bodySizes);
+
+            drive();
+            report();
+        } finally {
+            if (histogramLogWriter != null) {
+                histogramLogWriter.close();
+            }
+        }
+    }
+
+    private void drive() throws InterruptedException {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        long measuredStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measuredStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        reporter.schedule(this::endWarmup, warmupSeconds, TimeUnit.SECONDS);
+        reporter.scheduleAtFixedRate(this::reportInterval, warmupSeconds + reportIntervalSeconds,
+                reportIntervalSeconds, TimeUnit.SECONDS);
+        try {
+            long intervalNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+            for (long i = 0; ; i++) {
+                long due = rate > 0 ? start + i * intervalNanos : System.nanoTime();
+                if (due >= end) {
+                    break;
+                }
+                if (System.nanoTime() >= end) {
+                    System.out.printf("%d requests were due but not sent, the server did not keep up with %d/s%n",
+                            (end - due + intervalNanos - 1) / intervalNanos, rate);
+                    break;
+                }
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                send(mix.pick(random), due);
+            }
+            if (!inFlight.tryAcquire(concurrency, 1, TimeUnit.MINUTES)) {
+                System.out.println("Requests still in flight after a minute, reporting without them");
+            }
+        } finally {
+            reporter.shutdownNow();
+            reporter.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private void send(Operation operation, long due) {
+        HttpUriRequest request;
+        String name = null;
+        if (operation == Operation.UPDATE && pushed.get() > 0) {
+            String updated = pushedNames.get(random.nextInt((int) Math.min(pushed.get(), REMEMBERED_NAMES)));
+            request = new HttpPatch(dataServer + "/update/" + updated + "/" + randomBlockType());
+        } else if (operation == Operation.QUERY) {
+            request = new HttpGet(dataServer + "/data/" + randomBlockType()
+                    + (queryLimit > 0 ? "?limit=" + queryLimit : ""));
+        } else {
+            operation = Operation.PUSH;
+            name = "LOAD-" + sequence++;
+            request = pushRequest(name);
+        }
+
+        Operation sent = operation;
+        String pushedName = name;
+        httpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                int status = response.getStatusLine().getStatusCode();
+                if (status < 300) {
+                    meters.get(sent).recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due));
+                    if (pushedName != null) {
+                        pushedNames.set((int) (pushed.getAndIncrement() % REMEMBERED_NAMES), pushedName);
+                    }
+                } else {
+                    meters.get(sent).errors.incrementAndGet();
+                }
+                inFlight.release();
+            }
+
+            @Override
+            public void failed(Exception e) {
+                meters.get(sent).errors.incrementAndGet();
+                inFlight.release();
+            }
+
+            @Override
+            public void cancelled() {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Bodies of one size differ only in their leading sequence number, so every push is stored under its own
+     * content instead of being deduplicated.
+     */
+    private HttpUriRequest pushRequest(String name) {
+        String body = bodies.get(bodySizes.pick(random));
+        body = name + body.substring(Math.min(name.length(), body.length()));
+        HttpPost request = new HttpPost(dataServer + "/pushdata");
+        try {
+            request.setEntity(new ByteArrayEntity(
+                    objectMapper.writeValueAsBytes(BenchmarkData.envelope(name, body)), ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new IllegalStateException("Not able to serialize envelope " + name, e);
+        }
+        return request;
+    }
+
+    private String randomBlockType() {
+        BlockTypeEnum[] blockTypes = BlockTypeEnum.values();
+        return blockTypes[random.nextInt(blockTypes.length)].name();
+    }
+
+    private void endWarmup() {
+        for (Meters operationMeters : meters.values()) {
+            operationMeters.recorder.reset();
+            operationMeters.errors.set(0);
+        }
+        measuredFrom = System.nanoTime();
+        System.out.printf("Warmup of %d s done, measuring for %d s%n", warmupSeconds, durationSeconds);
+    }
+
+    private synchronized void reportInterval() {
+        double seconds = (System.nanoTime() - measuredFrom) / 1e9;
+        for (Map.Entry<Operation, Meters> entry : meters.entrySet()) {
+            Histogram interval = entry.getValue().takeInterval();
+            if (histogramLogWriter != null && interval.getTotalCount() > 0) {
+                interval.setTag(entry.getKey().name());
+                histogramLogWriter.outputIntervalHistogram(interval);
+            }
+            System.out.printf("%7.0f s %-6s %9.1f ops/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  errors %d%n",
+                    seconds, entry.getKey(), interval.getTotalCount() / (double) reportIntervalSeconds,
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue()), entry.getValue().errors.get());
+        }
+    }
+
+    private synchronized void report() {
+        double seconds = (System.nanoTime() - measuredFrom) / 1e9;
+        Histogram all = new Histogram(3);
+        System.out.printf("%nMeasured %.1f s%n", seconds);
+        for (Map.Entry<Operation, Meters> entry : meters.entrySet()) {
+            entry.getValue().takeInterval();
+            Histogram total = entry.getValue().total;
+            all.add(total);
+            printSummary(entry.getKey().name(), total, entry.getValue().errors.get(), seconds);
+        }
+        printSummary("ALL", all, meters.values().stream().mapToLong(m -> m.errors.get()).sum(), seconds);
+        for (Map.Entry<Operation, Meters> entry : meters.entrySet()) {
+            if (entry.getValue().total.getTotalCount() > 0) {
+                System.out.printf("%n%s latency distribution in ms:%n", entry.getKey());
+                entry.getValue().total.outputPercentileDistribution(System.out, 1000.0);
+            }
+        }
+    }
+
+    private static void printSummary(String operation, Histogram histogram, long errors, double seconds) {
+        System.out.printf("%-6s %9d ok %7d errors %9.1f ops/s  p50 %8.2f  p90 %8.2f  p99 %8.2f  p99.9 %8.2f  "
+                        + "max %8.2f ms%n",
+                operation, histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private HistogramLogWriter startHistogramLog() throws FileNotFoundException {
+        HistogramLogWriter writer = new HistogramLogWriter(new PrintStream(histogramLog));
+        writer.outputLogFormatVersion();
+        writer.outputStartTime(System.currentTimeMillis());
+        writer.outputComment("Latency in microseconds, tagged by operation");
+        writer.outputLegend();
+        return writer;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    enum Operation {
+        PUSH, QUERY, UPDATE
+    }
+
+    /**
+     * Latencies of successful requests of one operation in microseconds. The interval histograms are added up
+     * into {@link #total} as they are reported.
+     */
+    private static final class Meters {
+
+        private final Recorder recorder = new Recorder(3);
+        private final Histogram total = new Histogram(3);
+        private final AtomicLong errors = new AtomicLong();
+        private Histogram interval;
+
+        private Histogram takeInterval() {
+            interval = recorder.getIntervalHistogram(interval);
+            total.add(interval);
+            return interval;
+        }
+    }
+
+    /**
+     * Values picked at random in proportion to their weights, parsed from {@code value=weight} pairs.
+     */
+    private static final class WeightedChoice<T> {
+
+        private final NavigableMap<Integer, T> values = new TreeMap<>();
+        private final String spec;
+        private int totalWeight;
+
+        private WeightedChoice(String spec) {
+            this.spec = spec;
+        }
+
+        static <T> WeightedChoice<T> parse(String spec, Function<String, T> parser) {
+            WeightedChoice<T> choice = new WeightedChoice<>(spec);
+            for (String pair : spec.split(",")) {
+                String[] valueAndWeight = pair.trim().split("=");
+                int weight = Integer.parseInt(valueAndWeight[1]);
+                if (weight > 0) {
+                    choice.values.put(choice.totalWeight, parser.apply(valueAndWeight[0]));
+                    choice.totalWeight += weight;
+                }
+            }
+            if (choice.totalWeight == 0) {
+                throw new IllegalArgumentException("No value has a weight in " + spec);
+            }
+            return choice;
+        }
+
+        T pick(Random random) {
+            return values.floorEntry(random.nextInt(totalWeight)).getValue();
+        }
+
+        @Override
+        public String toString() {
+            return spec;
+        }
+    }
+}
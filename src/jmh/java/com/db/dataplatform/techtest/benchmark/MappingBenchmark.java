@@ -0,0 +1,63 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions between the API model and the persistence entities, per envelope. The {@code modelMapper*}
+ * benchmarks are the previous reflective mapping, configured as it was, as baseline. Run with
+ * {@code -prof gc} for the allocated bytes per envelope.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+
+    @Param({"64", "1000", "65536"})
+    public int bodySize;
+
+    private final DataEnvelopeMapper dataEnvelopeMapper = new DataEnvelopeMapper();
+    private ModelMapper modelMapper;
+    private DataEnvelope envelope;
+    private DataBodyEntity entity;
+
+    @Setup
+    public void createEnvelope() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setFieldMatchingEnabled(true);
+        envelope = BenchmarkData.envelope("BENCH-MAPPING", BenchmarkData.body(bodySize));
+        entity = dataEnvelopeMapper.toEntity(envelope);
+    }
+
+    @Benchmark
+    public DataBodyEntity envelopeToEntity() {
+        return dataEnvelopeMapper.toEntity(envelope);
+    }
+
+    @Benchmark
+    public DataEnvelope entityToEnvelope() {
+        return dataEnvelopeMapper.toEnvelope(entity);
+    }
+
+    @Benchmark
+    public DataBodyEntity modelMapperEnvelopeToEntity() {
+        DataHeaderEntity dataHeaderEntity = modelMapper.map(envelope.getDataHeader(), DataHeaderEntity.class);
+
+        DataBodyEntity dataBodyEntity = modelMapper.map(envelope.getDataBody(), DataBodyEntity.class);
+        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        return dataBodyEntity;
+    }
+}
@@ -0,0 +1,144 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.StorageModeEnum;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.exception.InvalidPageTokenException;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Batch ingest and block type page queries against the in-memory and the file-backed H2 database, each
+ * holding {@code rows} envelopes before the first iteration. Half of the stored envelopes are BLOCKTYPEA.
+ * Stored rows are inserted with SQL, far quicker than through the server, but 10 million of them still take
+ * over 20 minutes to load on one core, into a database file of about 6 GB; run with e.g.
+ * {@code -p rows=1000000} for a quicker comparison.
+ * <p>
+ * In memory the stored rows live on the heap, hence the large heap of the fork. Where that much memory is
+ * not available, compare the modes at fewer rows, e.g. {@code -p rows=2000000 -jvmArgsAppend -Xmx4g}.
+ * The file-backed database uses the cache size, write delay and compression of application.properties; the
+ * time the preload took and the size of the database file are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StorageBenchmark {
+
+    private static final int ENVELOPES_PER_INVOCATION = 500;
+    private static final int PRELOAD_CHUNK = 100_000;
+    private static final int BODY_SIZE = 200;
+
+    @Param({"MEMORY", "FILE"})
+    public StorageModeEnum mode;
+
+    @Param({"10000000"})
+    public int rows;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private Path databaseDirectory;
+    private ConfigurableApplicationContext context;
+    private Server server;
+    private String body;
+    private long preloadMillis;
+    private List<DataEnvelope> envelopes;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        databaseDirectory = Files.createTempDirectory("techtest-storage");
+        context = BenchmarkApplication.start(
+                "storage.database.mode=" + mode,
+                "storage.database.path=" + databaseDirectory.resolve("techtest"));
+        server = context.getBean(Server.class);
+        body = BenchmarkData.records(BODY_SIZE);
+
+        long start = System.nanoTime();
+        preload(new JdbcTemplate(context.getBean(DataSource.class)));
+        preloadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Inserts {@code rows} headers with distinct bodies in chunks of their own transaction, then moves the
+     * sequences past the inserted ids.
+     */
+    private void preload(JdbcTemplate jdbcTemplate) {
+        for (long from = 1; from <= rows; from += PRELOAD_CHUNK) {
+            long to = Math.min(rows, from + PRELOAD_CHUNK - 1);
+            jdbcTemplate.update("insert into DATA_HEADER (DATA_HEADER_ID, NAME, BLOCKTYPE, CREATED_TIMESTAMP)"
+                    + " select X, 'STORED-' || X, casewhen(mod(X, 2) = 0, 'BLOCKTYPEA', 'BLOCKTYPEB'),"
+                    + " current_timestamp from system_range(?, ?)", from, to);
+            jdbcTemplate.update("insert into DATA_BODY_CONTENT (DATA_BODY_CONTENT_ID, CONTENT_HASH, DATA_BODY,"
+                    + " DATA_BODY_CODEC, DATA_BODY_CHUNKS, DATA_BODY_BYTES, REFERENCE_COUNT, CREATED_TIMESTAMP)"
+                    + " select X, 'stored-' || X, stringtoutf8(? || X), 'NONE', 0, length(stringtoutf8(? || X)), 1,"
+                    + " current_timestamp from system_range(?, ?)", body, body, from, to);
+            jdbcTemplate.update("insert into DATA_STORE (DATA_STORE_ID, DATA_HEADER_ID, DATA_BODY_CONTENT_ID,"
+                    + " CREATED_TIMESTAMP) select X, X, X, current_timestamp from system_range(?, ?)", from, to);
+        }
+        long next = rows + 2L * ENVELOPES_PER_INVOCATION;
+        jdbcTemplate.execute("alter sequence SEQ_DATA_HEADER restart with " + next);
+        jdbcTemplate.execute("alter sequence SEQ_DATA_BODY_CONTENT restart with " + next);
+        jdbcTemplate.execute("alter sequence SEQ_DATA_STORE restart with " + next);
+    }
+
+    @Setup(Level.Invocation)
+    public void createEnvelopes() {
+        envelopes = new ArrayList<>(ENVELOPES_PER_INVOCATION);
+        for (int i = 0; i < ENVELOPES_PER_INVOCATION; i++) {
+            long id = sequence.incrementAndGet();
+            envelopes.add(BenchmarkData.envelope("BENCH-" + id, body.substring(0, BODY_SIZE - 12) + id));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        context.close();
+        long databaseBytes;
+        try (Stream<Path> files = Files.list(databaseDirectory)) {
+            databaseBytes = files.mapToLong(file -> file.toFile().length()).sum();
+        }
+        System.out.printf("%n%s database with %d rows preloaded in %d ms, %d bytes on disk%n",
+                mode, rows, preloadMillis, databaseBytes);
+        FileSystemUtils.deleteRecursively(databaseDirectory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENVELOPES_PER_INVOCATION)
+    public List<PushDataResult> ingestBatch() throws Exception {
+        return server.saveDataEnvelopes(envelopes);
+    }
+
+    @Benchmark
+    public DataEnvelopePage queryBlockType() throws InvalidPageTokenException {
+        return server.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, pageSize, null);
+    }
+}
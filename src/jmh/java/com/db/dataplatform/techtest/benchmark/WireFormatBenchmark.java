@@ -0,0 +1,68 @@
+package com.db.dataplatform.techtest.benchmark;
+
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization and deserialization of one server {@link DataEnvelope} per wire format, with the object
+ * mappers the application negotiates between. {@code records} bodies are JSON lines as we receive them,
+ * {@code random} bodies are random alphanumerics. The payload size of the envelope is printed at the end of
+ * each trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireFormatBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public WireFormatEnum format;
+
+    @Param({"records", "random"})
+    public String content;
+
+    @Param({"1000"})
+    public int bodySize;
+
+    private ObjectMapper objectMapper;
+    private DataEnvelope envelope;
+    private byte[] payload;
+
+    @Setup
+    public void createEnvelope() throws IOException {
+        objectMapper = new WireFormats(Jackson2ObjectMapperBuilder::new).objectMapper(format);
+        String body = "records".equals(content) ? BenchmarkData.records(bodySize) : BenchmarkData.body(bodySize);
+        envelope = BenchmarkData.envelope("BENCH-WIRE", body);
+        payload = objectMapper.writeValueAsBytes(envelope);
+    }
+
+    @TearDown
+    public void reportPayloadSize() {
+        System.out.printf("%n%s envelope with body of %d chars sent as %s in %d bytes%n",
+                content, bodySize, format, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(envelope);
+    }
+
+    @Benchmark
+    public DataEnvelope deserialize() throws IOException {
+        return objectMapper.readValue(payload, DataEnvelope.class);
+    }
+}
@@ -1,12 +1,20 @@
 package com.db.dataplatform.techtest;
 
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.orm.jpa.JpaTransactionManager;
@@ -15,24 +23,106 @@ import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 
+/**
+ * The embedded H2 database, in memory by default. With {@code storage.database.mode=FILE}, or the
+ * {@code file-storage} profile, it is kept in an MVStore file instead, tuned by the page cache size, the delay
+ * after which commits are written to the file, and page compression. The schema scripts only create what is
+ * missing, so a file database keeps its data across restarts.
+ */
 @Configuration
 @EnableJpaRepositories("com.db.dataplatform.techtest")
 public class EmbeddedDataSourceConfiguration {
 
     public static final String DATA_SOURCE = "dataSource";
     public static final String CLASSPATH_DB_MIGRATION_SETUP_SQL = "classpath:db.migration/setup.sql";
+    public static final String CLASSPATH_DB_MIGRATION_INDEXES_SQL = "classpath:db.migration/indexes.sql";
     public static final String PACKAGE_MODEL = "com.db.dataplatform.techtest.server.persistence.model";
+    public static final String[] POOLED_SEQUENCES = {"SEQ_DATA_HEADER", "SEQ_DATA_BODY_CONTENT", "SEQ_DATA_STORE",
+            "SEQ_HADOOP_OUTBOX"};
+
+    @Value("${" + PooledSequenceGenerator.BLOCK_SIZE_SETTING + ":" + PooledSequenceGenerator.DEFAULT_BLOCK_SIZE + "}")
+    public int idBlockSize;
+
+    @Value("${storage.database.mode:MEMORY}")
+    public StorageModeEnum storageMode;
+
+    @Value("${storage.database.path:./data/techtest}")
+    public String databasePath;
+
+    @Value("${storage.database.cache-size-kb:65536}")
+    public int cacheSizeKb;
+
+    /**
+     * Commits are acknowledged before they reach the file and written within this delay; a crash loses at
+     * most the commits of the last delay. 0 writes every commit before acknowledging it.
+     */
+    @Value("${storage.database.write-delay-ms:500}")
+    public int writeDelayMs;
+
+    /**
+     * Only applies when the file is created.
+     */
+    @Value("${storage.database.compress:false}")
+    public boolean compress;
 
     @Bean(name = DATA_SOURCE)
-    DataSource dataSource() {
+    public DataSource dataSource() {
         HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setDataSource(new EmbeddedDatabaseBuilder()
-                .setType(EmbeddedDatabaseType.H2)
-                .addScript(CLASSPATH_DB_MIGRATION_SETUP_SQL)
-                .setName(DATA_SOURCE)
-                .build());
+        if (storageMode == StorageModeEnum.FILE) {
+            hikariConfig.setJdbcUrl(fileDatabaseUrl());
+            hikariConfig.setUsername("sa");
+        } else {
+            EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+            hikariConfig.setDataSource(database);
+        }
+        HikariDataSource dataSource = new HikariDataSource(hikariConfig);
+
+        try {
+            createSequences(dataSource);
+            ResourceLoader resourceLoader = new DefaultResourceLoader();
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(
+                    resourceLoader.getResource(CLASSPATH_DB_MIGRATION_SETUP_SQL),
+                    resourceLoader.getResource(CLASSPATH_DB_MIGRATION_INDEXES_SQL)), dataSource);
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        return dataSource;
+    }
+
+    /**
+     * The database is closed when the data source is, rather than by the shutdown hook of H2, so the last
+     * delayed writes are flushed before the application stops.
+     */
+    private String fileDatabaseUrl() {
+        return "jdbc:h2:file:" + databasePath
+                + ";CACHE_SIZE=" + cacheSizeKb
+                + ";WRITE_DELAY=" + writeDelayMs
+                + ";COMPRESS=" + compress
+                + ";DB_CLOSE_ON_EXIT=FALSE";
+    }
 
-        return new HikariDataSource(hikariConfig);
+    /**
+     * The pooled id generator assumes each sequence value reserves a block of {@code idBlockSize} ids,
+     * so the sequences must increment by exactly that amount. Missing sequences are created with it. The
+     * increment of an existing sequence is left alone, as other instances sharing a file database may still
+     * draw blocks of the old size; starting with a different block size fails instead.
+     */
+    private void createSequences(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String sequence : POOLED_SEQUENCES) {
+            jdbcTemplate.execute("create sequence if not exists " + sequence + " start with 1 increment by " + idBlockSize);
+            Long increment = jdbcTemplate.queryForObject("select INCREMENT from INFORMATION_SCHEMA.SEQUENCES"
+                    + " where SEQUENCE_NAME = ?", Long.class, sequence);
+            if (increment == null || increment != idBlockSize) {
+                throw new IllegalStateException("Sequence " + sequence + " increments by " + increment
+                        + " but " + PooledSequenceGenerator.BLOCK_SIZE_SETTING + " is " + idBlockSize
+                        + "; start with the block size the database was created with");
+            }
+        }
     }
 
     @Bean
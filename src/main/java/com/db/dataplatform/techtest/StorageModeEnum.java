@@ -0,0 +1,15 @@
+package com.db.dataplatform.techtest;
+
+/**
+ * Where the embedded H2 database keeps its data, chosen with {@code storage.database.mode}.
+ */
+public enum StorageModeEnum {
+    /**
+     * In the heap. Every start gets a new, empty database, and the data is lost when the application stops.
+     */
+    MEMORY,
+    /**
+     * In an MVStore file at {@code storage.database.path}, kept across restarts and not limited by the heap.
+     */
+    FILE
+}
@@ -7,11 +7,13 @@ import com.db.dataplatform.techtest.client.component.Client;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.io.UnsupportedEncodingException;
 import java.util.List;
@@ -20,6 +22,7 @@ import static com.db.dataplatform.techtest.Constant.DUMMY_DATA;
 
 @SpringBootApplication
 @EnableRetry
+@EnableScheduling
 public class TechTestApplication {
 
 	public static final String HEADER_NAME = "TSLA-USDGBP-10Y";
@@ -28,6 +31,9 @@ public class TechTestApplication {
 	@Autowired
 	private Client client;
 
+	@Value("${techtest.demo-flow.enabled:true}")
+	private boolean demoFlowEnabled;
+
 	public static void main(String[] args) {
 
 		SpringApplication.run(TechTestApplication.class, args);
@@ -35,6 +41,10 @@ public class TechTestApplication {
 
 	@EventListener(ApplicationReadyEvent.class)
 	public void initiatePushDataFlow() throws JsonProcessingException, UnsupportedEncodingException {
+		if (!demoFlowEnabled) {
+			return;
+		}
+
 		pushData();
 
 		queryData();
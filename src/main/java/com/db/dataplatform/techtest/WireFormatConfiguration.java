@@ -0,0 +1,25 @@
+package com.db.dataplatform.techtest;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Message converters of the binary wire formats, used by the controllers and by every rest template built
+ * by the application. They take the place of the converters Spring would otherwise create with a default
+ * object mapper, after the JSON converter, so JSON is still chosen when a client accepts any type.
+ */
+@Configuration
+public class WireFormatConfiguration {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(WireFormats wireFormats) {
+        return new MappingJackson2SmileHttpMessageConverter(wireFormats.objectMapper(WireFormatEnum.SMILE));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(WireFormats wireFormats) {
+        return new MappingJackson2CborHttpMessageConverter(wireFormats.objectMapper(WireFormatEnum.CBOR));
+    }
+}
@@ -0,0 +1,63 @@
+package com.db.dataplatform.techtest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.Getter;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodings the API models are exchanged in. JSON is the default; Smile and CBOR are binary encodings of the
+ * same Jackson data model, so the models need no changes to be sent in them.
+ */
+@Getter
+public enum WireFormatEnum {
+    JSON(MediaType.APPLICATION_JSON_VALUE) {
+        @Override
+        public JsonFactory newFactory() {
+            return new JsonFactory();
+        }
+    },
+    SMILE(WireFormatEnum.APPLICATION_SMILE_VALUE) {
+        @Override
+        public JsonFactory newFactory() {
+            return new SmileFactory();
+        }
+    },
+    CBOR(MediaType.APPLICATION_CBOR_VALUE) {
+        @Override
+        public JsonFactory newFactory() {
+            return new CBORFactory();
+        }
+    };
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+
+    WireFormatEnum(String mediaType) {
+        this.mediaType = MediaType.valueOf(mediaType);
+    }
+
+    public abstract JsonFactory newFactory();
+
+    /**
+     * @param accepted media types accepted by the client, empty when it accepts any
+     * @return the format the client prefers, JSON when it accepts any or none of them.
+     */
+    public static WireFormatEnum negotiate(List<MediaType> accepted) {
+        List<MediaType> sorted = new ArrayList<>(accepted);
+        MediaType.sortBySpecificityAndQuality(sorted);
+        for (MediaType mediaType : sorted) {
+            for (WireFormatEnum format : values()) {
+                if (mediaType.isCompatibleWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
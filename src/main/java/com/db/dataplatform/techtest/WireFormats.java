@@ -0,0 +1,29 @@
+package com.db.dataplatform.techtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One object mapper per {@link WireFormatEnum}, each built from the object mapper builder of the application,
+ * so the binary formats follow the same {@code spring.jackson} settings as JSON.
+ */
+@Component
+public class WireFormats {
+
+    private final Map<WireFormatEnum, ObjectMapper> objectMappers = new EnumMap<>(WireFormatEnum.class);
+
+    public WireFormats(ObjectFactory<Jackson2ObjectMapperBuilder> objectMapperBuilders) {
+        for (WireFormatEnum format : WireFormatEnum.values()) {
+            objectMappers.put(format, objectMapperBuilders.getObject().factory(format.newFactory()).build());
+        }
+    }
+
+    public ObjectMapper objectMapper(WireFormatEnum format) {
+        return objectMappers.get(format);
+    }
+}
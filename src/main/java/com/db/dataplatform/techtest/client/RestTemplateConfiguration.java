@@ -1,36 +1,121 @@
 package com.db.dataplatform.techtest.client;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.http.converter.StringHttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * The rest template runs on a pooled Apache HttpClient, so connections to the data server and the Hadoop
+ * server are kept alive and reused instead of being opened for every request.
+ */
 @Configuration
-@RequiredArgsConstructor
 public class RestTemplateConfiguration {
 
-    private final RestTemplateBuilder restTemplateBuilder;
+    public static final String POOL_NAME = "rest-template";
+
+    @Value("${http.client.max-total:50}")
+    public int maxTotal;
+
+    @Value("${http.client.max-per-route:20}")
+    public int maxPerRoute;
+
+    @Value("${http.client.connect-timeout-ms:1000}")
+    public int connectTimeoutMs;
+
+    @Value("${http.client.read-timeout-ms:5000}")
+    public int readTimeoutMs;
+
+    @Value("${http.client.connection-request-timeout-ms:1000}")
+    public int connectionRequestTimeoutMs;
+
+    @Value("${http.client.keep-alive-ms:30000}")
+    public long keepAliveMs;
+
+    @Value("${http.client.idle-eviction-ms:30000}")
+    public long idleEvictionMs;
+
+    @Value("${http.client.validate-after-inactivity-ms:2000}")
+    public int validateAfterInactivityMs;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpClientConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+        return connectionManager;
+    }
+
+    /**
+     * Idle and expired connections are closed by a background thread of the client, so a connection the
+     * server has already dropped is not handed out from the pool.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpClientConnectionManager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(httpClientConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictionMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
 
     @Bean
-    public RestTemplate createRestTemplate(MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter,
-                                           StringHttpMessageConverter stringHttpMessageConverter) {
+    public RestTemplate createRestTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient httpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
 
-        RestTemplate restTemplate = restTemplateBuilder.build();
+    /**
+     * Requests made through this factory write their body straight to the connection, on the same pooled
+     * client as the rest template but without its interceptors, which buffer the whole body first.
+     */
+    @Bean
+    public ClientHttpRequestFactory streamingRequestFactory(CloseableHttpClient httpClient) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setBufferRequestBody(false);
+        return requestFactory;
+    }
 
-        CloseableHttpClient client = HttpClients.createDefault();
-        RestTemplate template= new RestTemplate();
-        template.setRequestFactory(new HttpComponentsClientHttpRequestFactory(client));
-        template.setMessageConverters(Arrays.asList(mappingJackson2HttpMessageConverter, stringHttpMessageConverter));
+    /**
+     * Publishes the pool size, leased, available and pending connections as httpcomponents.httpclient.pool.*
+     */
+    @Bean
+    public MeterBinder httpClientConnectionPoolMetrics(PoolingHttpClientConnectionManager httpClientConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(httpClientConnectionManager, POOL_NAME);
+    }
 
-        return restTemplate;
+    /**
+     * Uses the keep-alive timeout sent by the server, capped at {@link #keepAliveMs} so connections are
+     * not kept forever when the server does not send one.
+     */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long serverKeepAliveMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAliveMs > 0 ? Math.min(serverKeepAliveMs, keepAliveMs) : keepAliveMs;
+        };
     }
 
 }
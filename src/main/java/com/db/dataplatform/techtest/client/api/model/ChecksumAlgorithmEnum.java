@@ -0,0 +1,11 @@
+package com.db.dataplatform.techtest.client.api.model;
+
+/**
+ * Checksum algorithms the server accepts per data envelope, by name. MD5 is the default when none is given.
+ */
+public enum ChecksumAlgorithmEnum {
+    MD5,
+    SHA256,
+    CRC32C,
+    XXHASH32
+}
@@ -22,4 +22,13 @@ public class DataEnvelope {
     private DataBody dataBody;
 
     private String checksum;
+
+    /**
+     * Algorithm used for {@link #checksum}, MD5 when not set.
+     */
+    private ChecksumAlgorithmEnum checksumAlgorithm;
+
+    public DataEnvelope(DataHeader dataHeader, DataBody dataBody, String checksum) {
+        this(dataHeader, dataBody, checksum, null);
+    }
 }
@@ -0,0 +1,11 @@
+package com.db.dataplatform.techtest.client.api.model;
+
+/**
+ * Outcome the server reports per data envelope of a batch push.
+ */
+public enum PushDataStatusEnum {
+    CREATED,
+    DUPLICATE,
+    CHECKSUM_MISMATCH,
+    INVALID
+}
@@ -0,0 +1,13 @@
+package com.db.dataplatform.techtest.client.component;
+
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncClient {
+    /**
+     * @return completes with whether the server accepted the envelope, or exceptionally when it could not be
+     * delivered.
+     */
+    CompletableFuture<Boolean> pushData(DataEnvelope dataEnvelope);
+}
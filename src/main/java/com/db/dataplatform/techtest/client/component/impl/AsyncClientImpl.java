@@ -0,0 +1,294 @@
+package com.db.dataplatform.techtest.client.component.impl;
+
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.api.model.PushDataResult;
+import com.db.dataplatform.techtest.client.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.client.component.AsyncClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of {@link ClientImpl#pushData}. Pushes are sent from the NIO reactor of a pooled
+ * async HttpClient holding at most {@code maxConnections} connections to the server, so that many requests are
+ * in flight at once. Up to {@code maxInFlight} pushes may be outstanding; beyond that a push is rejected
+ * straight away, leaving the caller to try again later.
+ * <p>
+ * With a {@code batchSize} above 1 concurrent pushes are sent together to {@code /pushdata/batch}. A batch is
+ * sent once it is full, or {@code batchMaxDelayMs} after its first push. When the server answers the batch
+ * endpoint with 404 or 405 the client falls back to single pushes for the rest of its life.
+ * <p>
+ * Pushes are idempotent, the server answers a repeated one as a duplicate, so a push whose pooled connection
+ * turns out to have been closed by the server is sent once more on another connection.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AsyncClientImpl implements AsyncClient {
+
+    @Value("${client.server}")
+    public String dataServer;
+
+    @Value("${client.wire-format:JSON}")
+    public WireFormatEnum wireFormat;
+
+    @Value("${client.async.max-in-flight:1024}")
+    public int maxInFlight;
+
+    @Value("${client.async.max-connections:20}")
+    public int maxConnections;
+
+    @Value("${client.async.io-threads:2}")
+    public int ioThreads;
+
+    @Value("${client.async.batch-size:100}")
+    public int batchSize;
+
+    @Value("${client.async.batch-max-delay-ms:5}")
+    public long batchMaxDelayMs;
+
+    @Value("${http.client.connect-timeout-ms:1000}")
+    public int connectTimeoutMs;
+
+    @Value("${http.client.read-timeout-ms:5000}")
+    public int readTimeoutMs;
+
+    private final WireFormats wireFormats;
+    private final ClientMetrics clientMetrics;
+
+    private PoolingNHttpClientConnectionManager connectionManager;
+    private CloseableHttpAsyncClient httpClient;
+    private ScheduledExecutorService batchScheduler;
+    private Semaphore inFlightPermits;
+    private volatile boolean batching;
+    private List<PendingPush> pending = new ArrayList<>();
+
+    @PostConstruct
+    public void start() throws IOReactorException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(connectTimeoutMs)
+                .setSoTimeout(readTimeoutMs)
+                .build();
+        connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .build();
+
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        httpClient.start();
+
+        batchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "client-async-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        inFlightPermits = new Semaphore(maxInFlight);
+        batching = batchSize > 1;
+        log.info("Async client for {} started with {} connections and at most {} pushes in flight, batches of {}",
+                dataServer, maxConnections, maxInFlight, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        batchScheduler.shutdownNow();
+        httpClient.close();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> pushData(DataEnvelope dataEnvelope) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!inFlightPermits.tryAcquire()) {
+            clientMetrics.getRejections().increment();
+            result.completeExceptionally(new RejectedExecutionException(
+                    "Not able to push data, " + maxInFlight + " pushes already in flight"));
+            return result;
+        }
+
+        long start = System.nanoTime();
+        clientMetrics.pushStarted();
+        CompletableFuture<Boolean> completion = result.whenComplete((accepted, e) -> {
+            inFlightPermits.release();
+            clientMetrics.pushCompleted(System.nanoTime() - start, e == null);
+        });
+
+        PendingPush push = new PendingPush(dataEnvelope, result);
+        if (!batching) {
+            send(Collections.singletonList(push), true);
+            return completion;
+        }
+
+        List<PendingPush> full = null;
+        synchronized (this) {
+            pending.add(push);
+            if (pending.size() >= batchSize) {
+                full = takePending();
+            } else if (pending.size() == 1) {
+                List<PendingPush> batch = pending;
+                batchScheduler.schedule(() -> flush(batch), batchMaxDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            send(full, true);
+        }
+        return completion;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    /**
+     * Sends the batch unless it has been sent in the meantime because it filled up.
+     */
+    private void flush(List<PendingPush> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            takePending();
+        }
+        send(batch, true);
+    }
+
+    private List<PendingPush> takePending() {
+        List<PendingPush> taken = pending;
+        pending = new ArrayList<>(batchSize);
+        return taken;
+    }
+
+    /**
+     * @param retryClosed whether to send the pushes once more when the connection turns out to be closed.
+     */
+    private void send(List<PendingPush> pushes, boolean retryClosed) {
+        boolean batch = pushes.size() > 1;
+        ObjectMapper objectMapper = wireFormats.objectMapper(wireFormat);
+        byte[] body;
+        try {
+            if (batch) {
+                List<DataEnvelope> envelopes = new ArrayList<>(pushes.size());
+                pushes.forEach(push -> envelopes.add(push.envelope));
+                body = objectMapper.writeValueAsBytes(envelopes);
+            } else {
+                body = objectMapper.writeValueAsBytes(pushes.get(0).envelope);
+            }
+        } catch (IOException e) {
+            failAll(pushes, e);
+            return;
+        }
+        if (batch) {
+            clientMetrics.getBatchSize().record(pushes.size());
+        }
+
+        HttpPost request = new HttpPost(dataServer + (batch ? "/pushdata/batch" : "/pushdata"));
+        String mediaType = wireFormat.getMediaType().toString();
+        request.setEntity(new ByteArrayEntity(body, ContentType.create(mediaType)));
+        request.setHeader(HttpHeaders.ACCEPT, mediaType);
+
+        httpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                int status = response.getStatusLine().getStatusCode();
+                if (batch && (status == HttpStatus.SC_NOT_FOUND || status == HttpStatus.SC_METHOD_NOT_ALLOWED)) {
+                    log.warn("Server does not support batch pushes, falling back to single pushes");
+                    batching = false;
+                    // the server may close connections after rejecting a request, do not hand them out again
+                    EntityUtils.consumeQuietly(response.getEntity());
+                    connectionManager.closeIdleConnections(0, TimeUnit.MILLISECONDS);
+                    pushes.forEach(push -> send(Collections.singletonList(push), true));
+                } else if (status >= 300) {
+                    failAll(pushes, new HttpResponseException(status, "Server responded with status " + status));
+                } else {
+                    try {
+                        complete(pushes, EntityUtils.toByteArray(response.getEntity()));
+                    } catch (IOException e) {
+                        failAll(pushes, e);
+                    }
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (retryClosed && e instanceof ConnectionClosedException) {
+                    log.debug("Connection closed by the server, sending {} pushes once more", pushes.size());
+                    send(pushes, false);
+                } else {
+                    failAll(pushes, e);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                failAll(pushes, new CancellationException("Push was cancelled"));
+            }
+        });
+    }
+
+    private void complete(List<PendingPush> pushes, byte[] response) throws IOException {
+        ObjectMapper objectMapper = wireFormats.objectMapper(wireFormat);
+        if (pushes.size() == 1) {
+            pushes.get(0).result.complete(objectMapper.readValue(response, Boolean.class));
+            return;
+        }
+        PushDataResult[] results = objectMapper.readValue(response, PushDataResult[].class);
+        if (results.length != pushes.size()) {
+            throw new IOException("Server returned " + results.length + " results for " + pushes.size() + " pushes");
+        }
+        for (int i = 0; i < pushes.size(); i++) {
+            PushDataStatusEnum status = results[i].getStatus();
+            pushes.get(i).result.complete(status == PushDataStatusEnum.CREATED || status == PushDataStatusEnum.DUPLICATE);
+        }
+    }
+
+    private static void failAll(List<PendingPush> pushes, Exception cause) {
+        pushes.forEach(push -> push.result.completeExceptionally(cause));
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingPush {
+        private final DataEnvelope envelope;
+        private final CompletableFuture<Boolean> result;
+    }
+}
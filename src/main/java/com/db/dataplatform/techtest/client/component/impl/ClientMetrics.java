@@ -0,0 +1,57 @@
+package com.db.dataplatform.techtest.client.component.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters of the pushes of {@link AsyncClientImpl}. The push timer measures a push from the call to the
+ * completion of its future, so time spent waiting for a batch to fill is included.
+ */
+@Component
+public class ClientMetrics {
+
+    public static final String PUSH = "techtest.client.push";
+    public static final String PUSH_IN_FLIGHT = "techtest.client.push.in-flight";
+    public static final String PUSH_FAILURES = "techtest.client.push.failures";
+    public static final String PUSH_REJECTIONS = "techtest.client.push.rejections";
+    public static final String PUSH_BATCH_SIZE = "techtest.client.push.batch.size";
+
+    @Getter
+    private final DistributionSummary batchSize;
+    @Getter
+    private final Counter rejections;
+    private final Timer pushTimer;
+    private final Counter failures;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ClientMetrics(MeterRegistry meterRegistry) {
+        pushTimer = Timer.builder(PUSH).publishPercentileHistogram().register(meterRegistry);
+        batchSize = DistributionSummary.builder(PUSH_BATCH_SIZE).register(meterRegistry);
+        failures = Counter.builder(PUSH_FAILURES).register(meterRegistry);
+        rejections = Counter.builder(PUSH_REJECTIONS).register(meterRegistry);
+        Gauge.builder(PUSH_IN_FLIGHT, inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public void pushStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * @param success whether the push was delivered, whatever the server answered for it
+     */
+    public void pushCompleted(long durationNanos, boolean success) {
+        inFlight.decrementAndGet();
+        pushTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            failures.increment();
+        }
+    }
+}
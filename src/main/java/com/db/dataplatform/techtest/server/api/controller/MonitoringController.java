@@ -0,0 +1,25 @@
+package com.db.dataplatform.techtest.server.api.controller;
+
+import com.db.dataplatform.techtest.server.api.model.OutboxBacklog;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+@Slf4j
+@Controller
+@RequestMapping("/monitoring")
+@RequiredArgsConstructor
+public class MonitoringController {
+
+    private final HadoopOutboxService hadoopOutboxService;
+
+    @GetMapping(value = "/outbox", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<OutboxBacklog> getOutboxBacklog() {
+        return ResponseEntity.ok(hadoopOutboxService.getBacklog());
+    }
+}
@@ -1,12 +1,25 @@
 package com.db.dataplatform.techtest.server.api.controller;
 
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.component.IngestExecutor;
+import com.db.dataplatform.techtest.server.component.NdjsonIngestor;
 import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.StoredDataBody;
+import com.db.dataplatform.techtest.server.exception.ChecksumMismatchException;
 import com.db.dataplatform.techtest.server.exception.EntityNotFoundException;
-import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.db.dataplatform.techtest.server.exception.InvalidPageTokenException;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,13 +30,22 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
 import java.io.IOException;
-import java.security.NoSuchAlgorithmException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Controller
@@ -32,26 +54,126 @@ import java.util.List;
 @Validated
 public class ServerController {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final Server server;
+    private final NdjsonIngestor ndjsonIngestor;
+    private final WireFormats wireFormats;
+    private final IngestExecutor ingestExecutor;
 
-    @PostMapping(value = "/pushdata", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Boolean> pushData(@Valid @RequestBody DataEnvelope dataEnvelope) throws IOException, NoSuchAlgorithmException, HadoopClientException {
+    /**
+     * Idempotent on the header name: a push of a name already stored is answered with 200 and true, without
+     * storing anything, so a producer can safely retry a push it did not get an answer for.
+     */
+    @PostMapping(value = "/pushdata", consumes = {MediaType.APPLICATION_JSON_VALUE, WireFormatEnum.APPLICATION_SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE,
+            WireFormatEnum.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public CompletableFuture<ResponseEntity<Boolean>> pushData(@Valid @RequestBody DataEnvelope dataEnvelope) {
 
         log.info("Data envelope received: {}", dataEnvelope.getDataHeader().getName());
-        boolean checksumPass = server.saveDataEnvelope(dataEnvelope);
+        return ingestExecutor.submit(() -> server.saveDataEnvelope(dataEnvelope)).thenApply(status -> {
+            log.info("Data envelope {}. Attribute name: {}", status, dataEnvelope.getDataHeader().getName());
+            return toResponse(status);
+        });
+    }
+
+    @PostMapping(value = "/pushdata/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, WireFormatEnum.APPLICATION_SMILE_VALUE,
+            MediaType.APPLICATION_CBOR_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE,
+            WireFormatEnum.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<PushDataResult>> pushDataBatch(@Valid @RequestBody List<DataEnvelope> dataEnvelopes) {
+
+        log.info("Data envelope batch received, size: {}", dataEnvelopes.size());
+        List<PushDataResult> results = server.saveDataEnvelopes(dataEnvelopes);
+
+        log.info("Data envelope batch persisted, size: {}", dataEnvelopes.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/pushdata/stream", consumes = NdjsonIngestor.APPLICATION_NDJSON_VALUE, produces = NdjsonIngestor.APPLICATION_NDJSON_VALUE)
+    public void pushDataStream(InputStream dataEnvelopes, HttpServletResponse response) throws IOException {
+
+        log.info("Data envelope stream received");
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NdjsonIngestor.APPLICATION_NDJSON_VALUE);
+        long records = ndjsonIngestor.ingest(dataEnvelopes, response.getOutputStream());
+
+        log.info("Data envelope stream persisted, records: {}", records);
+    }
+
+    /**
+     * Pushes a single data body as raw bytes, for bodies too large to be sent inside a JSON envelope.
+     * The body is stored and checksummed as it streams in. Idempotent on the name, like {@code /pushdata}.
+     */
+    @PostMapping(value = "/pushdata/{name}/{blockType}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Boolean> pushDataBody(@NotBlank @PathVariable String name,
+                                                @PathVariable BlockTypeEnum blockType,
+                                                @NotBlank @RequestParam String checksum,
+                                                @RequestParam(required = false) ChecksumAlgorithmEnum checksumAlgorithm,
+                                                InputStream dataBody) throws IOException {
+
+        log.info("Data body stream received: {}", name);
+        PushDataStatusEnum status;
+        try {
+            status = server.saveDataStream(new DataHeader(name, blockType), dataBody, checksumAlgorithm, checksum);
+        } catch (ChecksumMismatchException e) {
+            log.info("Data body stream rejected: {}", e.getMessage());
+            status = PushDataStatusEnum.CHECKSUM_MISMATCH;
+        }
+
+        log.info("Data body stream {}. Attribute name: {}", status, name);
+        if (status == PushDataStatusEnum.DUPLICATE) {
+            // the unread rest of the body would otherwise be taken for the next request on the connection
+            return ResponseEntity.ok().header(HttpHeaders.CONNECTION, "close").body(true);
+        }
+        return toResponse(status);
+    }
+
+    @GetMapping(value = "/body/{name}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> getDataBody(@NotBlank @PathVariable String name)
+            throws EntityNotFoundException {
+        log.info("Request for the body of block with name: {}", name);
 
-        log.info("Data envelope persisted. Attribute name: {}", dataEnvelope.getDataHeader().getName());
-        return ResponseEntity.status(checksumPass ? HttpStatus.CREATED : HttpStatus.OK).body(checksumPass);
+        StoredDataBody dataBody = server.openDataBody(name);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(dataBody.getLength())
+                .body(dataBody::writeTo);
     }
 
-    @GetMapping(value = "/data/{blockType}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<DataEnvelope>> getDataByBlockType(@PathVariable BlockTypeEnum blockType) {
-        log.info("Request for a block: {}", blockType);
+    /**
+     * Envelopes are written as they are read, in the wire format the client prefers.
+     */
+    @GetMapping(value = "/data/{blockType}", produces = {MediaType.APPLICATION_JSON_VALUE,
+            WireFormatEnum.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<StreamingResponseBody> getDataByBlockType(@PathVariable BlockTypeEnum blockType,
+                                                                    @RequestHeader HttpHeaders headers) {
+        WireFormatEnum wireFormat = WireFormatEnum.negotiate(headers.getAccept());
+        log.info("Request for a block: {}, format: {}", blockType, wireFormat);
 
-        List<DataEnvelope> dataEnvelopes = server.getDataByBlockType(blockType);
-        return ResponseEntity.ok(dataEnvelopes);
+        StreamingResponseBody dataEnvelopes = outputStream -> {
+            try (JsonGenerator generator = wireFormats.objectMapper(wireFormat).getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                long count = server.streamDataByBlockType(blockType, envelope -> write(generator, envelope));
+                generator.writeEndArray();
+                log.info("Streamed block: {}, size: {}", blockType, count);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(wireFormat.getMediaType()).body(dataEnvelopes);
     }
 
+    @GetMapping(value = "/data/{blockType}", params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE,
+            WireFormatEnum.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<DataEnvelopePage> getDataByBlockType(@PathVariable BlockTypeEnum blockType,
+                                                               @Min(1) @Max(MAX_PAGE_SIZE) @RequestParam int limit,
+                                                               @RequestParam(required = false) String after)
+            throws InvalidPageTokenException {
+        log.info("Request for a page of block: {}, limit: {}", blockType, limit);
+
+        DataEnvelopePage dataEnvelopePage = server.getDataByBlockType(blockType, limit, after);
+        return ResponseEntity.ok(dataEnvelopePage);
+    }
 
     @PatchMapping(value = "/update/{name}/{newBlockType}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Boolean> updateDataByName(@NotBlank @PathVariable String name,
@@ -63,4 +185,32 @@ public class ServerController {
         return ResponseEntity.ok(updated);
     }
 
+    @PatchMapping(value = "/update/{newBlockType}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Integer> updateDataByNames(@PathVariable BlockTypeEnum newBlockType,
+                                                     @NotEmpty @RequestBody List<@NotBlank String> names) {
+        log.info("Update requested for blockType {} for {} names", newBlockType, names.size());
+
+        Integer updated = server.updateDataByNames(names, newBlockType);
+        return ResponseEntity.ok(updated);
+    }
+
+    private static ResponseEntity<Boolean> toResponse(PushDataStatusEnum status) {
+        switch (status) {
+            case CREATED:
+                return ResponseEntity.status(HttpStatus.CREATED).body(true);
+            case DUPLICATE:
+                return ResponseEntity.ok(true);
+            default:
+                return ResponseEntity.ok(false);
+        }
+    }
+
+    private static void write(JsonGenerator generator, DataEnvelope envelope) {
+        try {
+            generator.writeObject(envelope);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.db.dataplatform.techtest.server.api.model;
 
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.AllArgsConstructor;
@@ -24,4 +25,13 @@ public class DataEnvelope {
     private DataBody dataBody;
 
     private String checksum;
+
+    /**
+     * Algorithm used for {@link #checksum}, MD5 when not set.
+     */
+    private ChecksumAlgorithmEnum checksumAlgorithm;
+
+    public DataEnvelope(DataHeader dataHeader, DataBody dataBody, String checksum) {
+        this(dataHeader, dataBody, checksum, null);
+    }
 }
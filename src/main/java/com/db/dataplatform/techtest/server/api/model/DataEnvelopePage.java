@@ -0,0 +1,24 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of data envelopes. {@code nextPageToken} is opaque to clients and is null on the last page.
+ */
+@JsonSerialize(as = DataEnvelopePage.class)
+@JsonDeserialize(as = DataEnvelopePage.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class DataEnvelopePage {
+
+    private List<DataEnvelope> dataEnvelopes;
+
+    private String nextPageToken;
+}
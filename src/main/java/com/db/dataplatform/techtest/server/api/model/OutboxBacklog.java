@@ -0,0 +1,25 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@JsonSerialize(as = OutboxBacklog.class)
+@JsonDeserialize(as = OutboxBacklog.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class OutboxBacklog {
+
+    private long pending;
+
+    private long inFlight;
+
+    private long failed;
+
+    public long getDepth() {
+        return pending + inFlight;
+    }
+}
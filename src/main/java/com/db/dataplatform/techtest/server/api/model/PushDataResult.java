@@ -0,0 +1,22 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of pushing a single data envelope as part of a batch.
+ */
+@JsonSerialize(as = PushDataResult.class)
+@JsonDeserialize(as = PushDataResult.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class PushDataResult {
+
+    private String name;
+
+    private PushDataStatusEnum status;
+}
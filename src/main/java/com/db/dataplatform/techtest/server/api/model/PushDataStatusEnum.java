@@ -0,0 +1,8 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+public enum PushDataStatusEnum {
+    CREATED,
+    DUPLICATE,
+    CHECKSUM_MISMATCH,
+    INVALID
+}
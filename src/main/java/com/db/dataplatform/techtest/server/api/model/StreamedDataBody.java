@@ -0,0 +1,58 @@
+package com.db.dataplatform.techtest.server.api.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * A data body too large to be held as a string, read from the store each time it is serialized rather than
+ * loaded, so it is never in memory as a whole. {@link #getDataBody()} returns null.
+ * <p>
+ * It is written into JSON piece by piece as the store is read. The binary wire formats cannot take a string
+ * in pieces, so they carry a null body instead; it can be read from {@code /dataserver/body/{name}}.
+ */
+@JsonSerialize(using = StreamedDataBody.Serializer.class)
+public class StreamedDataBody extends DataBody {
+
+    private final Supplier<InputStream> source;
+
+    public StreamedDataBody(Supplier<InputStream> source) {
+        super(null);
+        this.source = source;
+    }
+
+    public InputStream open() {
+        return source.get();
+    }
+
+    public static class Serializer extends StdSerializer<StreamedDataBody> {
+
+        public Serializer() {
+            super(StreamedDataBody.class);
+        }
+
+        @Override
+        public void serialize(StreamedDataBody value, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName("dataBody");
+            if (gen instanceof JsonGeneratorImpl) {
+                try (Reader body = new InputStreamReader(value.open(), StandardCharsets.UTF_8)) {
+                    gen.writeString(body, -1);
+                }
+            } else {
+                gen.writeNull();
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.db.dataplatform.techtest.server.checksum;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.PureJavaCrc32C;
+import org.apache.commons.codec.digest.XXHash32;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Checksum;
+
+/**
+ * Checksum algorithms a client can choose per data envelope. MD5 is the default when none is given.
+ * CRC32C and XXHASH32 are not cryptographic and only protect against accidental corruption.
+ */
+public enum ChecksumAlgorithmEnum {
+    MD5 {
+        @Override
+        Hasher newHasher() {
+            return new DigestHasher(messageDigest("MD5"));
+        }
+    },
+    SHA256 {
+        @Override
+        Hasher newHasher() {
+            return new DigestHasher(messageDigest("SHA-256"));
+        }
+    },
+    CRC32C {
+        @Override
+        Hasher newHasher() {
+            return new ChecksumHasher(new PureJavaCrc32C());
+        }
+    },
+    XXHASH32 {
+        @Override
+        Hasher newHasher() {
+            return new ChecksumHasher(new XXHash32());
+        }
+    };
+
+    public static final ChecksumAlgorithmEnum DEFAULT = MD5;
+
+    /**
+     * @return a new, not thread safe, hasher for this algorithm.
+     */
+    abstract Hasher newHasher();
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support MD5 and SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    interface Hasher {
+        void update(byte[] bytes, int offset, int length);
+
+        /**
+         * Writes the hash of everything passed to {@link #update} as lower case hex and resets the hasher.
+         */
+        String finishHex();
+    }
+
+    private static final class DigestHasher implements Hasher {
+
+        private final MessageDigest digest;
+
+        private DigestHasher(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            digest.update(bytes, offset, length);
+        }
+
+        @Override
+        public String finishHex() {
+            return Hex.encodeHexString(digest.digest());
+        }
+    }
+
+    private static final class ChecksumHasher implements Hasher {
+
+        private final Checksum checksum;
+
+        private ChecksumHasher(Checksum checksum) {
+            this.checksum = checksum;
+        }
+
+        @Override
+        public void update(byte[] bytes, int offset, int length) {
+            checksum.update(bytes, offset, length);
+        }
+
+        @Override
+        public String finishHex() {
+            long value = checksum.getValue();
+            checksum.reset();
+            return String.format("%08x", value);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.db.dataplatform.techtest.server.checksum;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Computes data body checksums over the UTF-8 encoding of the body, whatever the platform charset.
+ * <p>
+ * Every checksum uses a hasher of its own. Hashers are not kept per thread, as ingest may run on virtual
+ * threads, each of which would hold its own and never reuse it. The body is encoded with
+ * {@link String#getBytes(java.nio.charset.Charset)}: for the ASCII payloads we receive it is an intrinsic
+ * array copy, which measured faster than feeding the digest through a {@code CharsetEncoder} buffer.
+ */
+@Component
+public class ChecksumCalculator {
+
+    /**
+     * @param algorithm null selects {@link ChecksumAlgorithmEnum#DEFAULT}.
+     * @return lower case hex checksum.
+     */
+    public String checksum(String data, ChecksumAlgorithmEnum algorithm) {
+        ChecksumAlgorithmEnum.Hasher hasher = (algorithm == null ? ChecksumAlgorithmEnum.DEFAULT : algorithm).newHasher();
+
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        hasher.update(bytes, 0, bytes.length);
+        return hasher.finishHex();
+    }
+
+    public boolean matches(String data, ChecksumAlgorithmEnum algorithm, String expectedChecksum) {
+        return expectedChecksum != null && expectedChecksum.equalsIgnoreCase(checksum(data, algorithm));
+    }
+}
@@ -0,0 +1,95 @@
+package com.db.dataplatform.techtest.server.checksum;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Computes the checksum of a data body while it is read, so a streamed body never has to be held in memory
+ * to be verified. Bytes skipped are read through and hashed as well; mark and reset are not supported.
+ */
+public class ChecksumInputStream extends FilterInputStream {
+
+    private final ChecksumAlgorithmEnum.Hasher hasher;
+    private final byte[] single = new byte[1];
+    private long length;
+    private String checksum;
+
+    /**
+     * @param algorithm null selects {@link ChecksumAlgorithmEnum#DEFAULT}.
+     */
+    public ChecksumInputStream(InputStream in, ChecksumAlgorithmEnum algorithm) {
+        super(in);
+        this.hasher = (algorithm == null ? ChecksumAlgorithmEnum.DEFAULT : algorithm).newHasher();
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = read(single, 0, 1);
+        return read == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = super.read(bytes, offset, length);
+        if (read > 0) {
+            if (checksum != null) {
+                throw new IllegalStateException("Checksum has already been computed");
+            }
+            hasher.update(bytes, offset, read);
+            this.length += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * @return number of bytes read so far.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Completes the checksum, after which no more bytes may be read.
+     *
+     * @return lower case hex checksum of the bytes read.
+     */
+    public String getChecksum() {
+        if (checksum == null) {
+            checksum = hasher.finishHex();
+        }
+        return checksum;
+    }
+
+    public boolean matches(String expectedChecksum) {
+        return expectedChecksum != null && expectedChecksum.equalsIgnoreCase(getChecksum());
+    }
+}
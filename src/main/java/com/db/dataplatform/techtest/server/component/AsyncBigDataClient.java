@@ -0,0 +1,218 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking counterpart of {@link BigDataClient}. Requests run on the NIO reactor of an async HttpClient,
+ * so a couple of I/O threads keep up to {@code maxInFlight} pushes in flight, and failed attempts are retried
+ * from a scheduler after the backoff instead of sleeping on the calling thread.
+ * <p>
+ * A push holds one in-flight permit from the first attempt until its future completes. When all permits are
+ * taken the push is rejected straight away, leaving the caller to try again later.
+ * <p>
+ * Pushes run behind the circuit breaker of {@link BigDataClient}, shared with blocking pushes: while it is open
+ * they fail fast, and a push that fails after its retries counts towards opening it.
+ * <p>
+ * Payloads are sent in the {@code wireFormat} configured for the Hadoop server, JSON by default.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AsyncBigDataClient {
+
+    @Value("${bigdata.server}")
+    public String bigDataServer;
+
+    @Value("${bigdata.retry.max-attempts:3}")
+    public int maxAttempts;
+
+    @Value("${bigdata.retry.initial-backoff-ms:500}")
+    public long initialBackoffMs;
+
+    @Value("${bigdata.retry.backoff-multiplier:3}")
+    public double backoffMultiplier;
+
+    @Value("${bigdata.async.max-in-flight:256}")
+    public int maxInFlight;
+
+    @Value("${bigdata.async.io-threads:2}")
+    public int ioThreads;
+
+    @Value("${http.client.connect-timeout-ms:1000}")
+    public int connectTimeoutMs;
+
+    @Value("${http.client.read-timeout-ms:5000}")
+    public int readTimeoutMs;
+
+    @Value("${bigdata.wire-format:JSON}")
+    public WireFormatEnum wireFormat;
+
+    private final WireFormats wireFormats;
+    private final HadoopClientMetrics hadoopClientMetrics;
+    private final BigDataClient bigDataClient;
+
+    private CloseableHttpAsyncClient httpClient;
+    private ScheduledExecutorService retryScheduler;
+    private Semaphore inFlightPermits;
+
+    @PostConstruct
+    public void start() throws IOReactorException {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(connectTimeoutMs)
+                .setSoTimeout(readTimeoutMs)
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager =
+                new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(maxInFlight);
+        connectionManager.setDefaultMaxPerRoute(maxInFlight);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .build();
+
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        httpClient.start();
+
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hadoop-async-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        inFlightPermits = new Semaphore(maxInFlight);
+        log.info("Async Hadoop client started with {} I/O threads and at most {} pushes in flight",
+                ioThreads, maxInFlight);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        retryScheduler.shutdownNow();
+        httpClient.close();
+    }
+
+    public CompletableFuture<Void> pushBigData(DataEnvelope envelope) {
+        log.info("Pushing data to Big Data asynchronously...");
+        return push(envelope);
+    }
+
+    /**
+     * The whole batch is sent in one request, so it is delivered or fails as a unit.
+     */
+    public CompletableFuture<Void> pushBigDataBatch(List<DataEnvelope> envelopes) {
+        log.info("Pushing batch of {} data to Big Data asynchronously...", envelopes.size());
+        hadoopClientMetrics.getBatchSize().record(envelopes.size());
+        return push(envelopes);
+    }
+
+    public int getInFlight() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    private CompletableFuture<Void> push(Object payload) {
+        return bigDataClient.throughCircuitBreaker(() -> send(payload));
+    }
+
+    private CompletableFuture<Void> send(Object payload) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        byte[] body;
+        try {
+            body = wireFormats.objectMapper(wireFormat).writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        if (!inFlightPermits.tryAcquire()) {
+            result.completeExceptionally(new HadoopClientException(
+                    "Not able to send data Big data server, " + maxInFlight + " pushes already in flight"));
+            return result;
+        }
+
+        attempt(body, 1, result);
+        return result.whenComplete((ignored, e) -> inFlightPermits.release());
+    }
+
+    private void attempt(byte[] body, int attempt, CompletableFuture<Void> result) {
+        HttpPost request = new HttpPost(bigDataServer + "/pushbigdata");
+        request.setEntity(new ByteArrayEntity(body, ContentType.create(wireFormat.getMediaType().toString())));
+        long start = System.nanoTime();
+
+        httpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                hadoopClientMetrics.getPushTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                int status = response.getStatusLine().getStatusCode();
+                if (status < 300) {
+                    hadoopClientMetrics.recordPush(attempt, true);
+                    result.complete(null);
+                } else {
+                    retryOrFail(body, attempt, result,
+                            new HadoopClientException("Big data server responded with status " + status));
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                hadoopClientMetrics.getPushTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                retryOrFail(body, attempt, result,
+                        new HadoopClientException("Not able to send data Big data server " + e.getMessage(), e));
+            }
+
+            @Override
+            public void cancelled() {
+                hadoopClientMetrics.recordPush(attempt, false);
+                result.completeExceptionally(new CancellationException("Push to Big data server was cancelled"));
+            }
+        });
+    }
+
+    private void retryOrFail(byte[] body, int attempt, CompletableFuture<Void> result, HadoopClientException cause) {
+        hadoopClientMetrics.recordFailedAttempt();
+        if (attempt < maxAttempts && !retryScheduler.isShutdown()) {
+            long backoffMs = (long) (initialBackoffMs * Math.pow(backoffMultiplier, attempt - 1));
+            log.info("Push to Big data server failed, retrying in {} ms: {}", backoffMs, cause.getMessage());
+            retryScheduler.schedule(() -> attempt(body, attempt + 1, result), backoffMs, TimeUnit.MILLISECONDS);
+        } else {
+            hadoopClientMetrics.recordPush(attempt, false);
+            result.completeExceptionally(cause);
+        }
+    }
+}
@@ -1,38 +1,225 @@
 package com.db.dataplatform.techtest.server.component;
 
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.StreamedDataBody;
 import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.CircuitBreaker;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.retry.RetryState;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.policy.CircuitBreakerRetryPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.DefaultRetryState;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.DefaultResponseErrorHandler;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Pushes to the Hadoop server, one envelope or a batch of envelopes per call. Every call is retried with
+ * exponential backoff, and the retried call as a whole runs behind a circuit breaker shared by all calls:
+ * after {@code failureThreshold} failed calls within {@code openTimeoutMs} the circuit opens and calls fail
+ * fast until {@code resetTimeoutMs} has passed.
+ * <p>
+ * The two policies are applied with retry templates rather than {@code @Retryable} and
+ * {@code @CircuitBreaker}, as spring-retry only honours one of the annotations on a method.
+ * <p>
+ * Payloads are sent in the {@code wireFormat} configured for the Hadoop server, JSON by default, except for
+ * those with a {@link StreamedDataBody}, see {@link #pushStoredBigData}.
+ */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class BigDataClient {
 
+    private static final RetryState CIRCUIT_STATE = new DefaultRetryState(BigDataClient.class.getName());
+    private static final ResponseErrorHandler RESPONSE_ERROR_HANDLER = new DefaultResponseErrorHandler();
+
     @Value("${bigdata.server}")
     public String bigDataServer;
 
+    @Value("${bigdata.retry.max-attempts:3}")
+    public int maxAttempts;
+
+    @Value("${bigdata.retry.initial-backoff-ms:500}")
+    public long initialBackoffMs;
+
+    @Value("${bigdata.retry.backoff-multiplier:3}")
+    public double backoffMultiplier;
+
+    @Value("${bigdata.circuit-breaker.failure-threshold:3}")
+    public int failureThreshold;
+
+    @Value("${bigdata.circuit-breaker.open-timeout-ms:5000}")
+    public long openTimeoutMs;
+
+    @Value("${bigdata.circuit-breaker.reset-timeout-ms:20000}")
+    public long resetTimeoutMs;
+
+    @Value("${bigdata.wire-format:JSON}")
+    public WireFormatEnum wireFormat;
+
     private final RestTemplate restTemplate;
+    private final ClientHttpRequestFactory streamingRequestFactory;
+    private final WireFormats wireFormats;
+    private final HadoopClientMetrics hadoopClientMetrics;
+
+    private RetryTemplate retryTemplate;
+    private RetryTemplate circuitBreakerTemplate;
+    private Counter circuitRejections;
+
+    @PostConstruct
+    public void start() {
+        Map<Class<? extends Throwable>, Boolean> retryableExceptions = new HashMap<>();
+        retryableExceptions.put(HttpStatusCodeException.class, true);
+        retryableExceptions.put(ResourceAccessException.class, true);
+
+        ExponentialBackOffPolicy backOffPolicy = new ExponentialBackOffPolicy();
+        backOffPolicy.setInitialInterval(initialBackoffMs);
+        backOffPolicy.setMultiplier(backoffMultiplier);
+
+        retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(maxAttempts, retryableExceptions, true));
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+        retryTemplate.registerListener(hadoopClientMetrics);
+
+        CircuitBreakerRetryPolicy circuitBreakerPolicy = new CircuitBreakerRetryPolicy(
+                new SimpleRetryPolicy(failureThreshold));
+        circuitBreakerPolicy.setOpenTimeout(openTimeoutMs);
+        circuitBreakerPolicy.setResetTimeout(resetTimeoutMs);
+
+        circuitBreakerTemplate = new RetryTemplate();
+        circuitBreakerTemplate.setRetryPolicy(circuitBreakerPolicy);
+        circuitRejections = hadoopClientMetrics.bindCircuitBreaker(circuitBreakerTemplate);
+    }
 
-    @Retryable(backoff = @Backoff(delay = 500, multiplier = 3), include = {HttpStatusCodeException.class})
-    @CircuitBreaker
     public void pushBigData(DataEnvelope envelope) throws HadoopClientException {
         log.info("Pushing data to Big Data...");
-        restTemplate.postForEntity(bigDataServer + "/pushbigdata", envelope, String.class);
+        post(envelope);
+    }
+
+    /**
+     * The whole batch is sent in one request, so it is delivered or fails as a unit.
+     */
+    public void pushBigDataBatch(List<DataEnvelope> envelopes) throws HadoopClientException {
+        log.info("Pushing batch of {} data to Big Data...", envelopes.size());
+        hadoopClientMetrics.getBatchSize().record(envelopes.size());
+        post(envelopes);
+    }
+
+    /**
+     * Pushes an envelope whose body is read from the data store as it is sent, so it is never held in memory.
+     * It is always sent as JSON, the only wire format a string can be written to piece by piece, and through
+     * the streaming request factory, as the interceptors of the rest template buffer the whole request.
+     * Retries and the circuit breaker apply as to any other push.
+     */
+    public void pushStoredBigData(DataEnvelope envelope) throws HadoopClientException {
+        log.info("Pushing stored data to Big Data...");
+        send(() -> postStreamed(envelope));
+    }
+
+    /**
+     * Runs a push made elsewhere, the non-blocking one of {@link AsyncBigDataClient}, behind the circuit breaker
+     * of this client: it is only started while the circuit is closed, and once it has failed, retries included,
+     * the failure counts towards opening the circuit like that of a blocking push.
+     */
+    CompletableFuture<Void> throughCircuitBreaker(Supplier<CompletableFuture<Void>> push) {
+        if (!circuitBreakerTemplate.execute(circuit -> true, circuit -> false, CIRCUIT_STATE)) {
+            circuitRejections.increment();
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new HadoopClientException("Not able to send data Big data server, circuit is open"));
+            return rejected;
+        }
+        return push.get().whenComplete((ignored, e) -> {
+            if (e != null) {
+                recordCircuitFailure(e);
+            }
+        });
+    }
+
+    private void recordCircuitFailure(Throwable failure) {
+        try {
+            circuitBreakerTemplate.execute(circuit -> {
+                throw new HadoopClientException(failure.getMessage(), failure);
+            }, circuit -> false, CIRCUIT_STATE);
+        } catch (HadoopClientException e) {
+            // rethrown by the stateful circuit breaker once it has counted the failure
+        }
+    }
+
+    private void post(Object payload) throws HadoopClientException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(wireFormat.getMediaType());
+        HttpEntity<Object> request = new HttpEntity<>(payload, headers);
+        send(() -> restTemplate.postForEntity(bigDataServer + "/pushbigdata", request, String.class));
+    }
 
+    /**
+     * Fails like the rest template would: with an {@link HttpStatusCodeException} on an error status, and a
+     * {@link ResourceAccessException} on an I/O error.
+     */
+    private void postStreamed(DataEnvelope envelope) {
+        String url = bigDataServer + "/pushbigdata";
+        try {
+            ClientHttpRequest request = streamingRequestFactory.createRequest(URI.create(url), HttpMethod.POST);
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            ObjectMapper objectMapper = wireFormats.objectMapper(WireFormatEnum.JSON);
+            if (request instanceof StreamingHttpOutputMessage) {
+                ((StreamingHttpOutputMessage) request)
+                        .setBody(out -> objectMapper.writeValue(StreamUtils.nonClosing(out), envelope));
+            } else {
+                objectMapper.writeValue(StreamUtils.nonClosing(request.getBody()), envelope);
+            }
+            try (ClientHttpResponse response = request.execute()) {
+                if (RESPONSE_ERROR_HANDLER.hasError(response)) {
+                    RESPONSE_ERROR_HANDLER.handleError(response);
+                }
+            }
+        } catch (IOException e) {
+            throw new ResourceAccessException("I/O error on POST request for \"" + url + "\": " + e.getMessage(), e);
+        }
     }
 
-    @Recover
-    public void fallback(Throwable e) throws HadoopClientException {
-        throw new HadoopClientException("Not able to send data Big data server " + e.getMessage());
+    private void send(Runnable push) throws HadoopClientException {
+        boolean sent;
+        try {
+            sent = circuitBreakerTemplate.execute(circuit -> retryTemplate.execute(attempt -> {
+                hadoopClientMetrics.getPushTimer().record(push);
+                return true;
+            }), circuit -> false, CIRCUIT_STATE);
+        } catch (RestClientException e) {
+            throw new HadoopClientException("Not able to send data Big data server " + e.getMessage(), e);
+        }
+        if (!sent) {
+            circuitRejections.increment();
+            throw new HadoopClientException("Not able to send data Big data server, circuit is open");
+        }
     }
 }
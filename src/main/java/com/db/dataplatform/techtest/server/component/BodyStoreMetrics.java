@@ -0,0 +1,84 @@
+package com.db.dataplatform.techtest.server.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Meters of the content-addressed body store. Bodies are counted as stored when their content was written,
+ * or as deduplicated when an identical content was referenced instead; sizes are UTF-8 lengths before
+ * compression. Within a transaction the counts are only recorded once it has committed.
+ */
+@Component
+public class BodyStoreMetrics {
+
+    public static final String BODIES = "techtest.body.store.bodies";
+    public static final String BYTES_STORED = "techtest.body.store.bytes.stored";
+    public static final String BYTES_SAVED = "techtest.body.store.bytes.saved";
+    public static final String DEDUP_RATIO = "techtest.body.store.dedup.ratio";
+
+    private final Counter storedBodies;
+    private final Counter deduplicatedBodies;
+    private final Counter storedBytes;
+    private final Counter savedBytes;
+
+    public BodyStoreMetrics(MeterRegistry meterRegistry) {
+        storedBodies = Counter.builder(BODIES).tag("outcome", "stored").register(meterRegistry);
+        deduplicatedBodies = Counter.builder(BODIES).tag("outcome", "deduplicated").register(meterRegistry);
+        storedBytes = Counter.builder(BYTES_STORED).baseUnit("bytes").register(meterRegistry);
+        savedBytes = Counter.builder(BYTES_SAVED).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder(DEDUP_RATIO, this, BodyStoreMetrics::dedupRatio).register(meterRegistry);
+    }
+
+    public void record(Counts counts) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(counts);
+                }
+            });
+        } else {
+            increment(counts);
+        }
+    }
+
+    /**
+     * @return share of the bodies saved so far that referenced an existing content.
+     */
+    public double dedupRatio() {
+        double total = storedBodies.count() + deduplicatedBodies.count();
+        return total == 0 ? 0 : deduplicatedBodies.count() / total;
+    }
+
+    private void increment(Counts counts) {
+        storedBodies.increment(counts.storedBodies);
+        deduplicatedBodies.increment(counts.deduplicatedBodies);
+        storedBytes.increment(counts.storedBytes);
+        savedBytes.increment(counts.savedBytes);
+    }
+
+    /**
+     * Counts of a single save, recorded together.
+     */
+    public static class Counts {
+
+        private long storedBodies;
+        private long deduplicatedBodies;
+        private long storedBytes;
+        private long savedBytes;
+
+        public void stored(long bytes) {
+            storedBodies++;
+            storedBytes += bytes;
+        }
+
+        public void deduplicated(long bytes) {
+            deduplicatedBodies++;
+            savedBytes += bytes;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.retry.policy.CircuitBreakerRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Meters of the Hadoop push. Besides the per-call timer, this is registered as retry listener on the
+ * retry template of {@link BigDataClient} and counts attempts and retries per push, and the pushes recovered
+ * by handing them back to the outbox once their retries are exhausted; {@link AsyncBigDataClient} records
+ * the same counts directly. The circuit breaker meters are registered by
+ * the client owning the circuit breaker, when it {@link #bindCircuitBreaker binds} its circuit breaker.
+ */
+@Component
+public class HadoopClientMetrics extends RetryListenerSupport {
+
+    public static final String PUSH = "techtest.hadoop.push";
+    public static final String PUSH_ATTEMPTS = "techtest.hadoop.push.attempts";
+    public static final String PUSH_RETRIES = "techtest.hadoop.push.retries";
+    public static final String PUSH_RECOVERIES = "techtest.hadoop.push.recoveries";
+    public static final String PUSH_BATCH_SIZE = "techtest.hadoop.push.batch.size";
+    public static final String CIRCUIT_OPEN = "techtest.hadoop.circuit.open";
+    public static final String CIRCUIT_TRANSITIONS = "techtest.hadoop.circuit.transitions";
+    public static final String CIRCUIT_REJECTIONS = "techtest.hadoop.circuit.rejections";
+
+    @Getter
+    private final Timer pushTimer;
+    @Getter
+    private final DistributionSummary batchSize;
+    private final MeterRegistry meterRegistry;
+    private final Counter successfulAttempts;
+    private final Counter failedAttempts;
+    private final Counter retries;
+    private final Counter recoveries;
+
+    public HadoopClientMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        pushTimer = Timer.builder(PUSH).publishPercentileHistogram().register(meterRegistry);
+        batchSize = DistributionSummary.builder(PUSH_BATCH_SIZE).register(meterRegistry);
+        successfulAttempts = Counter.builder(PUSH_ATTEMPTS).tag("outcome", "success").register(meterRegistry);
+        failedAttempts = Counter.builder(PUSH_ATTEMPTS).tag("outcome", "failure").register(meterRegistry);
+        retries = Counter.builder(PUSH_RETRIES).register(meterRegistry);
+        recoveries = Counter.builder(PUSH_RECOVERIES).register(meterRegistry);
+    }
+
+    /**
+     * Registers the circuit breaker meters, and a listener on {@code circuitBreakerTemplate} recording the
+     * transitions of its circuit breaker as reported in its retry context.
+     *
+     * @return counter of the pushes rejected while the circuit is open, for the caller to increment
+     */
+    public Counter bindCircuitBreaker(RetryTemplate circuitBreakerTemplate) {
+        CircuitBreakerListener listener = new CircuitBreakerListener(
+                Counter.builder(CIRCUIT_TRANSITIONS).tag("state", "open").register(meterRegistry),
+                Counter.builder(CIRCUIT_TRANSITIONS).tag("state", "closed").register(meterRegistry));
+        Gauge.builder(CIRCUIT_OPEN, listener.circuitOpen, open -> open.get() ? 1 : 0).register(meterRegistry);
+        circuitBreakerTemplate.registerListener(listener);
+        return Counter.builder(CIRCUIT_REJECTIONS).register(meterRegistry);
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                 Throwable throwable) {
+        recordFailedAttempt();
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+                                               Throwable throwable) {
+        boolean success = throwable == null;
+        recordPush(context.getRetryCount() + (success ? 1 : 0), success);
+    }
+
+    public void recordFailedAttempt() {
+        failedAttempts.increment();
+    }
+
+    /**
+     * A push whose last attempt failed fails with a {@link HadoopClientException} and is rescheduled by the
+     * outbox dispatcher, which counts as its recovery.
+     *
+     * @param attempts attempts made by the push, the failed ones included
+     * @param success  whether the last attempt succeeded
+     */
+    public void recordPush(int attempts, boolean success) {
+        if (success) {
+            successfulAttempts.increment();
+        } else {
+            recoveries.increment();
+        }
+        retries.increment(Math.max(0, attempts - 1));
+    }
+
+    private static class CircuitBreakerListener extends RetryListenerSupport {
+
+        private final Counter circuitOpened;
+        private final Counter circuitClosed;
+        private final AtomicBoolean circuitOpen = new AtomicBoolean();
+
+        CircuitBreakerListener(Counter circuitOpened, Counter circuitClosed) {
+            this.circuitOpened = circuitOpened;
+            this.circuitClosed = circuitClosed;
+        }
+
+        @Override
+        public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+                                                   Throwable throwable) {
+            Object open = context.getAttribute(CircuitBreakerRetryPolicy.CIRCUIT_OPEN);
+            if (open != null) {
+                recordCircuitState((Boolean) open);
+            }
+        }
+
+        private void recordCircuitState(boolean open) {
+            if (circuitOpen.compareAndSet(!open, open)) {
+                (open ? circuitOpened : circuitClosed).increment();
+            }
+        }
+    }
+}
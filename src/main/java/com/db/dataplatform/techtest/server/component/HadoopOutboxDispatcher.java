@@ -0,0 +1,204 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.persistence.model.HadoopOutboxEntity;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the Hadoop outbox in the background, so that ingest requests only pay for the local commit.
+ * At most {@code parallelism} pushes are in flight at any time; rows are claimed only when a worker is free.
+ * <p>
+ * By default every push carries a single envelope, the payload the Hadoop {@code /pushbigdata} endpoint
+ * expects. Batching is only for a Hadoop endpoint that accepts a JSON array of envelopes: with
+ * {@code outbox.dispatcher.batch-size} above 1 each push carries up to that many envelopes as an array. A
+ * batch is sent once it is full, or once its oldest envelope has been due for {@code batchMaxDelayMs}.
+ * <p>
+ * In {@code async} mode pushes go through the {@link AsyncBigDataClient}; the workers only read payloads and
+ * record outcomes, and as many pushes are in flight as the client allows instead of {@code parallelism}. A
+ * push counts as in flight here until its outcome is recorded, which is after the client has released it, so
+ * rows are never claimed for pushes the client would reject.
+ * <p>
+ * An envelope queued with its body left in the data store is always pushed on its own, by the worker and with
+ * the blocking client, which can stream the body from the store as it is sent.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class HadoopOutboxDispatcher {
+
+    @Value("${outbox.dispatcher.parallelism:4}")
+    public int parallelism;
+
+    @Value("${outbox.dispatcher.max-attempts:10}")
+    public int maxAttempts;
+
+    @Value("${outbox.dispatcher.retry-backoff-ms:5000}")
+    public long retryBackoffMs;
+
+    @Value("${outbox.dispatcher.claim-lease-ms:60000}")
+    public long claimLeaseMs;
+
+    @Value("${outbox.dispatcher.batch-size:1}")
+    public int batchSize;
+
+    @Value("${outbox.dispatcher.batch-max-delay-ms:1000}")
+    public long batchMaxDelayMs;
+
+    @Value("${outbox.dispatcher.async:false}")
+    public boolean async;
+
+    private final HadoopOutboxService hadoopOutboxService;
+    private final BigDataClient bigDataClient;
+    private final AsyncBigDataClient asyncBigDataClient;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "hadoop-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Hadoop outbox dispatcher started with parallelism {}, async {}", parallelism, async);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.poll-interval-ms:200}")
+    public void dispatch() {
+        int freeWorkers = (async ? asyncBigDataClient.getMaxInFlight() : parallelism) - inFlight.get();
+        if (freeWorkers <= 0) {
+            return;
+        }
+
+        List<HadoopOutboxEntity> claimed = hadoopOutboxService.claimBatch(freeWorkers * batchSize, batchSize,
+                Duration.ofMillis(batchMaxDelayMs));
+        for (int from = 0; from < claimed.size(); from += batchSize) {
+            List<HadoopOutboxEntity> batch = claimed.subList(from, Math.min(from + batchSize, claimed.size()));
+            inFlight.incrementAndGet();
+            executor.execute(() -> push(batch).whenComplete((ignored, e) -> inFlight.decrementAndGet()));
+        }
+    }
+
+    /**
+     * Rows claimed by a server instance that died before completing the push are handed back to the pool.
+     */
+    @Scheduled(fixedDelayString = "${outbox.dispatcher.claim-lease-ms:60000}")
+    public void releaseStaleClaims() {
+        int released = hadoopOutboxService.releaseStaleClaims(Duration.ofMillis(claimLeaseMs));
+        if (released > 0) {
+            log.warn("Released {} stale Hadoop outbox claims", released);
+        }
+    }
+
+    public long getBacklogDepth() {
+        return hadoopOutboxService.getBacklog().getDepth();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The outcome is tracked per entry: an entry whose payload cannot be read, or whose body is pushed from
+     * the data store, succeeds or fails on its own, the others are delivered or fail together with the push
+     * that carried them.
+     */
+    private CompletableFuture<Void> push(List<HadoopOutboxEntity> batch) {
+        List<HadoopOutboxEntity> entries = new ArrayList<>(batch.size());
+        List<DataEnvelope> envelopes = new ArrayList<>(batch.size());
+        for (HadoopOutboxEntity entry : batch) {
+            DataEnvelope envelope;
+            try {
+                envelope = hadoopOutboxService.readPayload(entry);
+            } catch (Exception e) {
+                fail(entry, e);
+                continue;
+            }
+            if (entry.isBodyStored()) {
+                pushStored(entry, envelope);
+            } else {
+                envelopes.add(envelope);
+                entries.add(entry);
+            }
+        }
+        if (entries.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return send(envelopes).whenCompleteAsync((ignored, e) -> {
+            if (e != null) {
+                entries.forEach(entry -> fail(entry, e));
+                return;
+            }
+            entries.forEach(this::delivered);
+        }, executor);
+    }
+
+    private void pushStored(HadoopOutboxEntity entry, DataEnvelope envelope) {
+        try {
+            bigDataClient.pushStoredBigData(envelope);
+        } catch (Exception e) {
+            fail(entry, e);
+            return;
+        }
+        delivered(entry);
+    }
+
+    private CompletableFuture<Void> send(List<DataEnvelope> envelopes) {
+        if (async) {
+            return envelopes.size() == 1
+                    ? asyncBigDataClient.pushBigData(envelopes.get(0))
+                    : asyncBigDataClient.pushBigDataBatch(envelopes);
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            if (envelopes.size() == 1) {
+                bigDataClient.pushBigData(envelopes.get(0));
+            } else {
+                bigDataClient.pushBigDataBatch(envelopes);
+            }
+            result.complete(null);
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private void delivered(HadoopOutboxEntity entry) {
+        hadoopOutboxService.markDelivered(entry);
+        log.info("Pushed data to Hadoop server, data name: {}", entry.getDataHeaderName());
+    }
+
+    private void fail(HadoopOutboxEntity entry, Throwable e) {
+        log.warn("Push to Hadoop server failed for data name: {}, attempt {}",
+                entry.getDataHeaderName(), entry.getAttempts() + 1, e);
+        hadoopOutboxService.markFailed(entry, maxAttempts, Duration.ofMillis(retryBackoffMs));
+    }
+}
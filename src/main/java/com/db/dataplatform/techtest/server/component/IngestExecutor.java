@@ -0,0 +1,153 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.exception.ServerBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs ingest requests off the servlet threads, so a request only holds a container thread while it is
+ * parsed and validated. At most {@code threads} requests run at once and {@code queueCapacity} more wait;
+ * beyond that a request is rejected with {@link ServerBusyException} straight away.
+ * <p>
+ * With {@code virtualThreads} each request runs on its own virtual thread when the JDK provides them, still
+ * bounded to {@code threads + queueCapacity} admitted requests. When {@code enabled} is false requests run on
+ * the calling thread, as before, and neither threads nor admission meters are created.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestExecutor {
+
+    public static final String EXECUTOR_NAME = "ingest";
+    public static final String ADMITTED = "techtest.ingest.executor.admitted";
+    public static final String REJECTED = "techtest.ingest.executor.rejected";
+
+    @Value("${ingest.async.enabled:false}")
+    public boolean enabled;
+
+    @Value("${ingest.async.threads:16}")
+    public int threads;
+
+    @Value("${ingest.async.queue-capacity:256}")
+    public int queueCapacity;
+
+    @Value("${ingest.async.virtual-threads:false}")
+    public boolean virtualThreads;
+
+    @Value("${ingest.async.retry-after-seconds:1}")
+    public int retryAfterSeconds;
+
+    private final MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+    private Semaphore admissions;
+    private Counter rejected;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Ingest executor disabled, ingest requests run on the calling thread");
+            return;
+        }
+        int capacity = threads + queueCapacity;
+        admissions = new Semaphore(capacity);
+        rejected = Counter.builder(REJECTED).register(meterRegistry);
+        Gauge.builder(ADMITTED, admissions, permits -> capacity - permits.availablePermits()).register(meterRegistry);
+
+        ExecutorService virtualThreadExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        executor = ExecutorServiceMetrics.monitor(meterRegistry,
+                virtualThreadExecutor != null ? virtualThreadExecutor : newThreadPool(), EXECUTOR_NAME);
+        log.info("Ingest executor started, virtual threads {}, threads {}, queue capacity {}",
+                virtualThreadExecutor != null, threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!enabled) {
+            run(task, result);
+            return result;
+        }
+        if (!admissions.tryAcquire()) {
+            reject(result);
+            return result;
+        }
+
+        CompletableFuture<T> admitted = result.whenComplete((ignored, e) -> admissions.release());
+        try {
+            executor.execute(() -> run(task, result));
+        } catch (RejectedExecutionException e) {
+            reject(result);
+        }
+        return admitted;
+    }
+
+    private <T> void run(Callable<T> task, CompletableFuture<T> result) {
+        try {
+            result.complete(task.call());
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void reject(CompletableFuture<?> result) {
+        rejected.increment();
+        result.completeExceptionally(new ServerBusyException(
+                "Server is busy, " + (threads + queueCapacity) + " ingest requests already in progress",
+                retryAfterSeconds));
+    }
+
+    private ExecutorService newThreadPool() {
+        AtomicInteger threadCount = new AtomicInteger();
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new LinkedBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Looked up reflectively, so the application still builds for and runs on Java 8.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Virtual threads are not available on Java {}, using a platform thread pool",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Ingests newline-delimited data envelopes straight from a stream. Records are parsed one at a time and
+ * persisted in fixed-size chunks, each chunk in its own transaction, and one result line is written back
+ * per record as soon as its chunk is committed. Memory use is bounded by the chunk size, not the upload.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class NdjsonIngestor {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    @Value("${ingest.stream.chunk-size:500}")
+    public int chunkSize;
+
+    private final Server server;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    /**
+     * @return number of records read from the input.
+     */
+    public long ingest(InputStream in, OutputStream out) throws IOException {
+        ObjectWriter resultWriter = objectMapper.writerFor(PushDataResult.class);
+        List<DataEnvelope> chunk = new ArrayList<>(chunkSize);
+        long records = 0;
+
+        try (MappingIterator<DataEnvelope> envelopes = objectMapper.readerFor(DataEnvelope.class).readValues(in);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            try {
+                while (envelopes.hasNextValue()) {
+                    chunk.add(envelopes.nextValue());
+                    records++;
+                    if (chunk.size() == chunkSize) {
+                        flush(chunk, resultWriter, generator);
+                    }
+                }
+                flush(chunk, resultWriter, generator);
+            } catch (JsonProcessingException e) {
+                log.warn("Malformed record after {} records, stopping stream ingest", records, e);
+                flush(chunk, resultWriter, generator);
+                write(new PushDataResult(null, PushDataStatusEnum.INVALID), resultWriter, generator);
+                generator.flush();
+            }
+        }
+        return records;
+    }
+
+    private void flush(List<DataEnvelope> chunk, ObjectWriter resultWriter, JsonGenerator generator) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        boolean[] validRecords = new boolean[chunk.size()];
+        List<DataEnvelope> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            validRecords[i] = validator.validate(chunk.get(i)).isEmpty();
+            if (validRecords[i]) {
+                valid.add(chunk.get(i));
+            }
+        }
+        Iterator<PushDataResult> savedResults = server.saveDataEnvelopes(valid).iterator();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            write(validRecords[i] ? savedResults.next() : invalid(chunk.get(i)), resultWriter, generator);
+        }
+        generator.flush();
+        chunk.clear();
+    }
+
+    private PushDataResult invalid(DataEnvelope envelope) {
+        String name = envelope.getDataHeader() == null ? null : envelope.getDataHeader().getName();
+        return new PushDataResult(name, PushDataStatusEnum.INVALID);
+    }
+
+    private void write(PushDataResult result, ObjectWriter resultWriter, JsonGenerator generator) throws IOException {
+        resultWriter.writeValue(generator, result);
+        generator.writeRaw('\n');
+    }
+}
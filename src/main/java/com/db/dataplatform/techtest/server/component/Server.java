@@ -1,18 +1,39 @@
 package com.db.dataplatform.techtest.server.component;
 
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.exception.ChecksumMismatchException;
 import com.db.dataplatform.techtest.server.exception.EntityNotFoundException;
-import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.db.dataplatform.techtest.server.exception.InvalidPageTokenException;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 
 import java.io.IOException;
-import java.security.NoSuchAlgorithmException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface Server {
-    boolean saveDataEnvelope(DataEnvelope envelope) throws IOException, NoSuchAlgorithmException, HadoopClientException;
+    PushDataStatusEnum saveDataEnvelope(DataEnvelope envelope) throws IOException;
+
+    List<PushDataResult> saveDataEnvelopes(List<DataEnvelope> envelopes);
+
+    PushDataStatusEnum saveDataStream(DataHeader dataHeader, InputStream dataBody, ChecksumAlgorithmEnum checksumAlgorithm,
+                                      String checksum) throws IOException, ChecksumMismatchException;
+
+    StoredDataBody openDataBody(String name) throws EntityNotFoundException;
 
     List<DataEnvelope> getDataByBlockType(BlockTypeEnum blockType);
 
+    DataEnvelopePage getDataByBlockType(BlockTypeEnum blockType, int limit, String pageToken)
+            throws InvalidPageTokenException;
+
+    long streamDataByBlockType(BlockTypeEnum blockType, Consumer<DataEnvelope> consumer);
+
     boolean updateDataByName(String name, BlockTypeEnum newBlockType) throws EntityNotFoundException;
+
+    int updateDataByNames(List<String> names, BlockTypeEnum newBlockType);
 }
@@ -0,0 +1,174 @@
+package com.db.dataplatform.techtest.server.component;
+
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the ingest, query and update paths. Stage timers share a name per path and are tagged with the
+ * stage, so the time of a slow request can be attributed to checksum, mapping, persistence, the outbox or
+ * the commit. End-to-end request latency is recorded by Spring MVC as http.server.requests.
+ * <p>
+ * Ingested envelopes are also counted by outcome, and single envelope pushes timed by outcome, so duplicates
+ * answered from the name index are reported apart from fresh inserts.
+ */
+@Getter
+@Component
+public class ServerMetrics {
+
+    public static final String INGEST_STAGE = "techtest.ingest.stage";
+    public static final String INGEST_CHECKSUM_MISMATCH = "techtest.ingest.checksum.mismatch";
+    public static final String INGEST_BATCH_SIZE = "techtest.ingest.batch.size";
+    public static final String INGEST_ENVELOPES = "techtest.ingest.envelopes";
+    public static final String INGEST_LATENCY = "techtest.ingest.latency";
+    public static final String QUERY_STAGE = "techtest.query.stage";
+    public static final String QUERY_RESULT_SIZE = "techtest.query.result.size";
+    public static final String UPDATE_STAGE = "techtest.update.stage";
+    public static final String UPDATE_ROWS = "techtest.update.rows";
+
+    private final Timer duplicateCheckTimer;
+    private final Timer checksumTimer;
+    private final Timer mappingTimer;
+    private final Timer persistTimer;
+    private final Timer enqueueTimer;
+    private final Timer commitTimer;
+    private final DistributionSummary batchSize;
+
+    private final Timer queryFetchTimer;
+    private final Timer queryMappingTimer;
+    private final Timer queryStreamTimer;
+    private final DistributionSummary listResultSize;
+    private final DistributionSummary pageResultSize;
+    private final DistributionSummary streamResultSize;
+
+    private final Timer updateTimer;
+    private final DistributionSummary updatedRows;
+
+    @Getter(AccessLevel.NONE)
+    private final Map<ChecksumAlgorithmEnum, Counter> checksumMismatches = new EnumMap<>(ChecksumAlgorithmEnum.class);
+    @Getter(AccessLevel.NONE)
+    private final Map<PushDataStatusEnum, Counter> ingestedEnvelopes = new EnumMap<>(PushDataStatusEnum.class);
+    @Getter(AccessLevel.NONE)
+    private final Map<PushDataStatusEnum, Timer> ingestLatencies = new EnumMap<>(PushDataStatusEnum.class);
+
+    public ServerMetrics(MeterRegistry meterRegistry) {
+        duplicateCheckTimer = stageTimer(meterRegistry, INGEST_STAGE, "duplicate-check");
+        checksumTimer = stageTimer(meterRegistry, INGEST_STAGE, "checksum");
+        mappingTimer = stageTimer(meterRegistry, INGEST_STAGE, "mapping");
+        persistTimer = stageTimer(meterRegistry, INGEST_STAGE, "persist");
+        enqueueTimer = stageTimer(meterRegistry, INGEST_STAGE, "enqueue");
+        commitTimer = stageTimer(meterRegistry, INGEST_STAGE, "commit");
+        batchSize = DistributionSummary.builder(INGEST_BATCH_SIZE).register(meterRegistry);
+
+        queryFetchTimer = stageTimer(meterRegistry, QUERY_STAGE, "fetch");
+        queryMappingTimer = stageTimer(meterRegistry, QUERY_STAGE, "mapping");
+        queryStreamTimer = stageTimer(meterRegistry, QUERY_STAGE, "stream");
+        listResultSize = resultSize(meterRegistry, "list");
+        pageResultSize = resultSize(meterRegistry, "page");
+        streamResultSize = resultSize(meterRegistry, "stream");
+
+        updateTimer = stageTimer(meterRegistry, UPDATE_STAGE, "update");
+        updatedRows = DistributionSummary.builder(UPDATE_ROWS).register(meterRegistry);
+
+        for (ChecksumAlgorithmEnum algorithm : ChecksumAlgorithmEnum.values()) {
+            checksumMismatches.put(algorithm, Counter.builder(INGEST_CHECKSUM_MISMATCH)
+                    .tag("algorithm", algorithm.name())
+                    .register(meterRegistry));
+        }
+        for (PushDataStatusEnum status : PushDataStatusEnum.values()) {
+            ingestedEnvelopes.put(status, Counter.builder(INGEST_ENVELOPES)
+                    .tag("status", status.name())
+                    .register(meterRegistry));
+            ingestLatencies.put(status, Timer.builder(INGEST_LATENCY)
+                    .tag("status", status.name())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @param algorithm algorithm requested by the client, null for the default.
+     */
+    public void checksumMismatch(ChecksumAlgorithmEnum algorithm) {
+        checksumMismatches.get(algorithm == null ? ChecksumAlgorithmEnum.DEFAULT : algorithm).increment();
+    }
+
+    /**
+     * Counts an envelope by outcome. A created envelope is only counted once its transaction has committed.
+     */
+    public void ingested(PushDataStatusEnum status) {
+        onOutcome(status, () -> ingestedEnvelopes.get(status).increment());
+    }
+
+    /**
+     * Counts a single envelope push by outcome and records its latency, from {@code sample} to commit for a
+     * created envelope and to the answer otherwise.
+     */
+    public void ingested(PushDataStatusEnum status, Timer.Sample sample) {
+        onOutcome(status, () -> {
+            ingestedEnvelopes.get(status).increment();
+            sample.stop(ingestLatencies.get(status));
+        });
+    }
+
+    /**
+     * Records the flush and commit of the current transaction, which happen after the transactional method
+     * has returned, as the commit stage.
+     */
+    public void timeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCommit() {
+                commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private static void onOutcome(PushDataStatusEnum status, Runnable record) {
+        if (status != PushDataStatusEnum.CREATED || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            record.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record.run();
+            }
+        });
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String name, String stage) {
+        return Timer.builder(name)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static DistributionSummary resultSize(MeterRegistry meterRegistry, String query) {
+        return DistributionSummary.builder(QUERY_RESULT_SIZE)
+                .tag("query", query)
+                .register(meterRegistry);
+    }
+}
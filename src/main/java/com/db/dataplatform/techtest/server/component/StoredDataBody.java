@@ -0,0 +1,17 @@
+package com.db.dataplatform.techtest.server.component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A stored data body that is written out on demand rather than loaded as a whole.
+ */
+public interface StoredDataBody {
+
+    /**
+     * @return length of the body in bytes, UTF-8 encoded.
+     */
+    long getLength();
+
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -2,24 +2,42 @@ package com.db.dataplatform.techtest.server.component.impl;
 
 import com.db.dataplatform.techtest.server.api.model.DataBody;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
 import com.db.dataplatform.techtest.server.api.model.DataHeader;
-import com.db.dataplatform.techtest.server.component.BigDataClient;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.api.model.StreamedDataBody;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.checksum.ChecksumInputStream;
+import com.db.dataplatform.techtest.server.component.StoredDataBody;
+import com.db.dataplatform.techtest.server.exception.ChecksumMismatchException;
 import com.db.dataplatform.techtest.server.exception.EntityNotFoundException;
-import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.db.dataplatform.techtest.server.exception.InvalidPageTokenException;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
-import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
 import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.component.ServerMetrics;
 import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.binary.Hex;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -27,79 +45,309 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ServerImpl implements Server {
 
+    private static final char PAGE_TOKEN_SEPARATOR = ':';
+
     private final DataBodyService dataBodyServiceImpl;
-    private final ModelMapper modelMapper;
-    private final BigDataClient bigDataClient;
+    private final DataEnvelopeMapper dataEnvelopeMapper;
+    private final HadoopOutboxService hadoopOutboxService;
+    private final ChecksumCalculator checksumCalculator;
+    private final ServerMetrics serverMetrics;
 
     /**
+     * Pushes are idempotent on the header name: the first push of a name is stored, and any later push of it
+     * is a no-op answered as {@link PushDataStatusEnum#DUPLICATE} from the unique name index, before its
+     * checksum is verified and without an insert being attempted. The push to Hadoop is recorded in the
+     * outbox within the same transaction and delivered in the background.
+     *
      * @param envelope request to persist
-     * @return true if there is a match with the client provided checksum.
+     * @return CREATED if stored, CHECKSUM_MISMATCH if the client provided checksum does not match.
      */
     @Override
-    public boolean saveDataEnvelope(DataEnvelope envelope) throws NoSuchAlgorithmException, HadoopClientException {
-
-        String checksum  = checksum(envelope.getDataBody().getDataBody());
-        boolean checksumMatch = checksum.equals(envelope.getChecksum());
-        log.info("Checksum matching status is {}", checksumMatch);
+    @Transactional
+    public PushDataStatusEnum saveDataEnvelope(DataEnvelope envelope) {
+        Timer.Sample sample = Timer.start();
+        String name = envelope.getDataHeader().getName();
+        PushDataStatusEnum status;
 
-        if (checksumMatch) {
+        if (!findExistingNames(Collections.singletonList(name)).isEmpty()) {
+            log.info("Data already persisted, ignoring duplicate of data name: {}", name);
+            status = PushDataStatusEnum.DUPLICATE;
+        } else if (!checksumMatches(envelope)) {
+            log.info("Checksum does not match, data name: {}", name);
+            status = PushDataStatusEnum.CHECKSUM_MISMATCH;
+        } else {
             // Save to persistence.
             persist(envelope);
-            log.info("Data persisted successfully, data name: {}", envelope.getDataHeader().getName());
+            log.info("Data persisted successfully, data name: {}", name);
 
-            pushBigData(envelope);
-            log.info("Pushed data to Hadoop server");
+            serverMetrics.getEnqueueTimer().record(() -> hadoopOutboxService.enqueue(envelope));
+            log.info("Queued data for Hadoop server");
+            serverMetrics.timeCommit();
+            status = PushDataStatusEnum.CREATED;
         }
-        return checksumMatch;
+        serverMetrics.ingested(status, sample);
+        return status;
+    }
+
+    /**
+     * Names already stored are looked up for the whole batch in one query and answered as duplicates, as is
+     * a name repeated after its first accepted envelope in the batch. The checksums of the others are
+     * verified up front, then all matching envelopes are persisted and queued for Hadoop in a single
+     * transaction, so the inserts can be sent to the database as JDBC batches.
+     *
+     * @param envelopes request to persist
+     * @return one result per envelope, in request order.
+     */
+    @Override
+    @Transactional
+    public List<PushDataResult> saveDataEnvelopes(List<DataEnvelope> envelopes) {
+        List<PushDataResult> results = new ArrayList<>(envelopes.size());
+        List<DataBodyEntity> dataBodyEntities = new ArrayList<>(envelopes.size());
+        List<DataEnvelope> accepted = new ArrayList<>(envelopes.size());
+        Set<String> storedNames = new HashSet<>(findExistingNames(envelopes.stream()
+                .map(envelope -> envelope.getDataHeader().getName())
+                .collect(Collectors.toList())));
+
+        for (DataEnvelope envelope : envelopes) {
+            String name = envelope.getDataHeader().getName();
+            PushDataStatusEnum status;
+            if (storedNames.contains(name)) {
+                status = PushDataStatusEnum.DUPLICATE;
+            } else if (!checksumMatches(envelope)) {
+                status = PushDataStatusEnum.CHECKSUM_MISMATCH;
+            } else {
+                dataBodyEntities.add(toEntity(envelope));
+                accepted.add(envelope);
+                storedNames.add(name);
+                status = PushDataStatusEnum.CREATED;
+            }
+            serverMetrics.ingested(status);
+            results.add(new PushDataResult(name, status));
+        }
+
+        if (!accepted.isEmpty()) {
+            serverMetrics.getPersistTimer().record(() -> dataBodyServiceImpl.saveDataBodies(dataBodyEntities));
+            serverMetrics.getEnqueueTimer().record(() -> hadoopOutboxService.enqueueAll(accepted));
+            serverMetrics.timeCommit();
+        }
+        serverMetrics.getBatchSize().record(envelopes.size());
+        log.info("Persisted {} of {} data envelopes in batch", accepted.size(), envelopes.size());
+        return results;
+    }
+
+    /**
+     * The body is stored as it is read, in chunks when large, with the checksum computed along the way, so
+     * the request never holds more than one chunk of it. A mismatch is only known once the whole body has
+     * been read and rolls back what was stored. A duplicate name is answered before the body is read.
+     * A body stored in chunks is queued for Hadoop by reference, and read from the store again as it is
+     * pushed.
+     *
+     * @return CREATED if stored, DUPLICATE if the name is already stored.
+     */
+    @Override
+    @Transactional(rollbackFor = {IOException.class, ChecksumMismatchException.class})
+    public PushDataStatusEnum saveDataStream(DataHeader dataHeader, InputStream dataBody,
+                                             ChecksumAlgorithmEnum checksumAlgorithm, String checksum)
+            throws IOException, ChecksumMismatchException {
+        Timer.Sample sample = Timer.start();
+        if (!findExistingNames(Collections.singletonList(dataHeader.getName())).isEmpty()) {
+            log.info("Data already persisted, ignoring duplicate stream of data name: {}", dataHeader.getName());
+            serverMetrics.ingested(PushDataStatusEnum.DUPLICATE, sample);
+            return PushDataStatusEnum.DUPLICATE;
+        }
+
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataHeaderEntity(dataEnvelopeMapper.toEntity(dataHeader));
+        ChecksumInputStream checksummed = new ChecksumInputStream(dataBody, checksumAlgorithm);
+
+        Timer.Sample persist = Timer.start();
+        dataBodyServiceImpl.saveDataBody(dataBodyEntity, checksummed);
+        persist.stop(serverMetrics.getPersistTimer());
+
+        if (!checksummed.matches(checksum)) {
+            serverMetrics.checksumMismatch(checksumAlgorithm);
+            serverMetrics.ingested(PushDataStatusEnum.CHECKSUM_MISMATCH, sample);
+            throw new ChecksumMismatchException("Checksum does not match data body of " + dataHeader.getName());
+        }
+        DataEnvelope envelope = new DataEnvelope(dataHeader, toDataBody(dataBodyEntity), checksum, checksumAlgorithm);
+        serverMetrics.getEnqueueTimer().record(() -> hadoopOutboxService.enqueue(envelope));
+        serverMetrics.timeCommit();
+        serverMetrics.ingested(PushDataStatusEnum.CREATED, sample);
+        log.info("Data streamed and persisted successfully, data name: {}, bytes: {}",
+                dataHeader.getName(), checksummed.getLength());
+        return PushDataStatusEnum.CREATED;
+    }
+
+    /**
+     * Only the row of the body is read here; its chunks are read as the body is written.
+     */
+    @Override
+    public StoredDataBody openDataBody(String name) throws EntityNotFoundException {
+        DataBodyEntity dataBodyEntity = dataBodyServiceImpl.getDataByBlockName(name)
+                .orElseThrow(EntityNotFoundException::new);
+        long length = dataBodyEntity.getContent().getDataBodyBytes();
+
+        return new StoredDataBody() {
+            @Override
+            public long getLength() {
+                return length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                dataBodyServiceImpl.writeDataBody(dataBodyEntity, out);
+            }
+        };
     }
 
     @Override
     public List<DataEnvelope> getDataByBlockType(BlockTypeEnum blockType) {
-        List<DataBodyEntity> entityList = dataBodyServiceImpl.getDataByBlockType(blockType);
-        List<DataEnvelope> dataEnvelopes = entityList.stream().map(this::map).collect(Collectors.toList());
-     
+        List<DataBodyEntity> entityList = serverMetrics.getQueryFetchTimer()
+                .record(() -> dataBodyServiceImpl.getDataByBlockType(blockType));
+        List<DataEnvelope> dataEnvelopes = mapAll(entityList);
+        serverMetrics.getListResultSize().record(dataEnvelopes.size());
+
         log.info("Retrieved data with size: {}", dataEnvelopes.size());
         return dataEnvelopes;
     }
 
+    /**
+     * Keyset pagination on the data header id: each page seeks past the last id of the previous one, so deep
+     * pages cost the same as the first. One extra row is read to tell whether another page follows.
+     *
+     * @param pageToken token from the previous page, null or empty for the first page
+     * @return up to {@code limit} envelopes and the token of the next page, null on the last page.
+     */
     @Override
+    @Transactional(readOnly = true)
+    public DataEnvelopePage getDataByBlockType(BlockTypeEnum blockType, int limit, String pageToken)
+            throws InvalidPageTokenException {
+        long afterId = pageToken == null || pageToken.isEmpty() ? 0L : decodePageToken(blockType, pageToken);
+        List<DataBodyEntity> entityList = serverMetrics.getQueryFetchTimer()
+                .record(() -> dataBodyServiceImpl.getDataByBlockTypeAfter(blockType, afterId, limit + 1));
+
+        String nextPageToken = null;
+        if (entityList.size() > limit) {
+            entityList = entityList.subList(0, limit);
+            nextPageToken = encodePageToken(blockType, entityList.get(limit - 1).getDataHeaderEntity().getDataHeaderId());
+        }
+        List<DataEnvelope> dataEnvelopes = mapAll(entityList);
+        serverMetrics.getPageResultSize().record(dataEnvelopes.size());
+
+        log.info("Retrieved page of data with size: {}", dataEnvelopes.size());
+        return new DataEnvelopePage(dataEnvelopes, nextPageToken);
+    }
+
+    /**
+     * Hands each stored envelope of the block type to the consumer as it is read from the database,
+     * without holding the result in memory.
+     *
+     * @return number of envelopes streamed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long streamDataByBlockType(BlockTypeEnum blockType, Consumer<DataEnvelope> consumer) {
+        long count = serverMetrics.getQueryStreamTimer()
+                .record(() -> dataBodyServiceImpl.forEachByBlockType(blockType, entity -> consumer.accept(map(entity))));
+        serverMetrics.getStreamResultSize().record(count);
+
+        log.info("Streamed data with size: {}", count);
+        return count;
+    }
+
+    @Override
+    @Transactional
     public boolean updateDataByName(String name, BlockTypeEnum newBlockType) throws EntityNotFoundException {
-        DataBodyEntity bodyEntity = dataBodyServiceImpl.getDataByBlockName(name)
-                .orElseThrow(EntityNotFoundException::new);
-        bodyEntity.getDataHeaderEntity().setBlocktype(newBlockType);
-        dataBodyServiceImpl.saveDataBody(bodyEntity);
+        if (updateBlockTypeByNames(Collections.singletonList(name), newBlockType) == 0) {
+            throw new EntityNotFoundException();
+        }
         log.info("Updated BlockType for the name: {}", name);
 
         return true;
     }
 
-    private void pushBigData(DataEnvelope envelope) throws HadoopClientException {
-        bigDataClient.pushBigData(envelope);
+    /**
+     * Names that do not exist are skipped.
+     *
+     * @return number of headers updated.
+     */
+    @Override
+    @Transactional
+    public int updateDataByNames(List<String> names, BlockTypeEnum newBlockType) {
+        int updated = updateBlockTypeByNames(names, newBlockType);
+        log.info("Updated BlockType to {} for {} of {} names", newBlockType, updated, names.size());
+
+        return updated;
+    }
+
+    private int updateBlockTypeByNames(List<String> names, BlockTypeEnum newBlockType) {
+        int updated = serverMetrics.getUpdateTimer().record(() -> dataBodyServiceImpl.updateBlockTypeByNames(names, newBlockType));
+        serverMetrics.getUpdatedRows().record(updated);
+        return updated;
     }
 
-    private String checksum(String data) throws NoSuchAlgorithmException {
-        byte[] hash = MessageDigest.getInstance("MD5").digest(data.getBytes());
-        return Hex.encodeHexString(hash);
+    private static String encodePageToken(BlockTypeEnum blockType, long lastId) {
+        String token = blockType.name() + PAGE_TOKEN_SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodePageToken(BlockTypeEnum blockType, String pageToken) throws InvalidPageTokenException {
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            int separator = token.lastIndexOf(PAGE_TOKEN_SEPARATOR);
+            if (separator > 0 && token.substring(0, separator).equals(blockType.name())) {
+                return Long.parseLong(token.substring(separator + 1));
+            }
+        } catch (IllegalArgumentException e) {
+            // falls through to the exception below, NumberFormatException included
+        }
+        throw new InvalidPageTokenException("Page token is not valid for block type " + blockType);
+    }
+
+    private Set<String> findExistingNames(List<String> names) {
+        return serverMetrics.getDuplicateCheckTimer().record(() -> dataBodyServiceImpl.findExistingNames(names));
+    }
+
+    private boolean checksumMatches(DataEnvelope envelope) {
+        boolean checksumMatch = serverMetrics.getChecksumTimer().record(() -> checksumCalculator.matches(
+                envelope.getDataBody().getDataBody(), envelope.getChecksumAlgorithm(), envelope.getChecksum()));
+        if (!checksumMatch) {
+            serverMetrics.checksumMismatch(envelope.getChecksumAlgorithm());
+        }
+        return checksumMatch;
     }
 
     private void persist(DataEnvelope envelope) {
         log.info("Persisting data with attribute name: {}", envelope.getDataHeader().getName());
-        DataHeaderEntity dataHeaderEntity = modelMapper.map(envelope.getDataHeader(), DataHeaderEntity.class);
-
-        DataBodyEntity dataBodyEntity = modelMapper.map(envelope.getDataBody(), DataBodyEntity.class);
-        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        DataBodyEntity dataBodyEntity = toEntity(envelope);
+        serverMetrics.getPersistTimer().record(() -> saveData(dataBodyEntity));
+    }
 
-        saveData(dataBodyEntity);
+    private DataBodyEntity toEntity(DataEnvelope envelope) {
+        return serverMetrics.getMappingTimer().record(() -> dataEnvelopeMapper.toEntity(envelope));
     }
 
     private void saveData(DataBodyEntity dataBodyEntity) {
         dataBodyServiceImpl.saveDataBody(dataBodyEntity);
     }
 
+    private List<DataEnvelope> mapAll(List<DataBodyEntity> entityList) {
+        return serverMetrics.getQueryMappingTimer()
+                .record(() -> entityList.stream().map(this::map).collect(Collectors.toList()));
+    }
+
     private DataEnvelope map(DataBodyEntity entity) {
-        return new DataEnvelope(
-                new DataHeader(entity.getDataHeaderEntity().getName(), entity.getDataHeaderEntity().getBlocktype()),
-                new DataBody(entity.getDataBody()), null
-        );
+        return dataEnvelopeMapper.toEnvelope(entity, toDataBody(entity));
+    }
+
+    /**
+     * Bodies stored in chunks are not loaded with their entity, nor reassembled: they are streamed from their
+     * chunks whenever the envelope is serialized.
+     */
+    private DataBody toDataBody(DataBodyEntity entity) {
+        if (entity.getContent() == null || !entity.getContent().isChunked()) {
+            return new DataBody(entity.getDataBody());
+        }
+        return new StreamedDataBody(() -> dataBodyServiceImpl.openDataBody(entity));
     }
 }
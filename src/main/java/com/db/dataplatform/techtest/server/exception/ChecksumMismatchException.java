@@ -0,0 +1,12 @@
+package com.db.dataplatform.techtest.server.exception;
+
+/**
+ * Thrown once a streamed data body has been read and its checksum does not match the one given by the
+ * client, so everything stored for the body is rolled back.
+ */
+public class ChecksumMismatchException extends Exception {
+
+    public ChecksumMismatchException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.db.dataplatform.techtest.server.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageTokenException extends Exception {
+
+    public InvalidPageTokenException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.db.dataplatform.techtest.server.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Getter
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServerBusyException extends Exception {
+
+    private final int retryAfterSeconds;
+
+    public ServerBusyException(final String message, final int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -1,5 +1,7 @@
 package com.db.dataplatform.techtest.server.exception;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -23,6 +25,34 @@ public class TechTestExceptionAdvice {
         return new ResponseEntity<>(err, err.getStatus());
     }
 
+    @ExceptionHandler(InvalidPageTokenException.class)
+    public ResponseEntity<Object> handleInvalidPageTokenException(InvalidPageTokenException ex) {
+
+        ErrorMessage err = new ErrorMessage(
+                Instant.now(),
+                HttpStatus.BAD_REQUEST,
+                "Invalid page token",
+                Collections.singletonList(ex.getMessage()));
+
+        return new ResponseEntity<>(err, err.getStatus());
+    }
+
+    /**
+     * A unique key taken by a concurrent request between the duplicate check and the commit. Retrying the
+     * request answers it from the data stored by the other one.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+
+        ErrorMessage err = new ErrorMessage(
+                Instant.now(),
+                HttpStatus.CONFLICT,
+                "Data stored concurrently",
+                Collections.singletonList("Data was stored by a concurrent request, retry to get its status"));
+
+        return new ResponseEntity<>(err, err.getStatus());
+    }
+
     @ExceptionHandler(HadoopClientException.class)
     public ResponseEntity<Object> handleHadoopClientException(HadoopClientException ex) {
 
@@ -34,4 +64,18 @@ public class TechTestExceptionAdvice {
 
         return new ResponseEntity<>(err, err.getStatus());
     }
+
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<Object> handleServerBusyException(ServerBusyException ex) {
+
+        ErrorMessage err = new ErrorMessage(
+                Instant.now(),
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Server busy",
+                Collections.singletonList(ex.getMessage()));
+
+        return ResponseEntity.status(err.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(err);
+    }
 }
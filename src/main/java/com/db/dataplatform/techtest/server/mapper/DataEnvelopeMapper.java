@@ -0,0 +1,56 @@
+package com.db.dataplatform.techtest.server.mapper;
+
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Explicit conversions between the API model and the persistence entities. Plain field copies, so no
+ * reflection or type map lookups on the ingest and query paths.
+ */
+@Component
+public class DataEnvelopeMapper {
+
+    public DataBodyEntity toEntity(DataEnvelope envelope) {
+        DataBodyEntity dataBodyEntity = toEntity(envelope.getDataBody());
+        dataBodyEntity.setDataHeaderEntity(toEntity(envelope.getDataHeader()));
+        return dataBodyEntity;
+    }
+
+    public DataHeaderEntity toEntity(DataHeader dataHeader) {
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setName(dataHeader.getName());
+        dataHeaderEntity.setBlocktype(dataHeader.getBlockType());
+        return dataHeaderEntity;
+    }
+
+    public DataBodyEntity toEntity(DataBody dataBody) {
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataBody(dataBody.getDataBody());
+        return dataBodyEntity;
+    }
+
+    /**
+     * The checksum is not stored, so envelopes read back carry none. Bodies stored in chunks are not loaded
+     * with the entity; use {@link #toEnvelope(DataBodyEntity, DataBody)} with a body streamed from the store
+     * for those.
+     */
+    public DataEnvelope toEnvelope(DataBodyEntity entity) {
+        return toEnvelope(entity, toDataBody(entity));
+    }
+
+    public DataEnvelope toEnvelope(DataBodyEntity entity, DataBody dataBody) {
+        return new DataEnvelope(toDataHeader(entity.getDataHeaderEntity()), dataBody, null);
+    }
+
+    public DataHeader toDataHeader(DataHeaderEntity entity) {
+        return new DataHeader(entity.getName(), entity.getBlocktype());
+    }
+
+    public DataBody toDataBody(DataBodyEntity entity) {
+        return new DataBody(entity.getDataBody());
+    }
+}
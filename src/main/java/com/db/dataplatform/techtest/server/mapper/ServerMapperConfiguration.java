@@ -1,18 +0,0 @@
-package com.db.dataplatform.techtest.server.mapper;
-
-import org.modelmapper.ModelMapper;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-@Configuration
-public class ServerMapperConfiguration {
-
-    @Bean
-    public ModelMapper createModelMapperBean() {
-        ModelMapper modelMapper = new ModelMapper();
-        modelMapper.getConfiguration()
-                .setFieldMatchingEnabled(true);
-
-        return modelMapper;
-    }
-}
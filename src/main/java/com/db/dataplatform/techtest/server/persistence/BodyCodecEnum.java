@@ -0,0 +1,98 @@
+package com.db.dataplatform.techtest.server.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encoding of a stored data body or body chunk. Every row records the codec it was written with, so rows
+ * written before a codec was introduced, or with a codec no longer chosen for new rows, stay readable.
+ */
+public enum BodyCodecEnum {
+
+    /**
+     * The bytes as they are, as stored for bodies that do not compress.
+     */
+    NONE {
+        @Override
+        public byte[] compress(byte[] data, int offset, int length) {
+            return offset == 0 && length == data.length ? data : Arrays.copyOfRange(data, offset, offset + length);
+        }
+
+        @Override
+        public byte[] decompress(byte[] stored) {
+            return stored;
+        }
+    },
+
+    /**
+     * Zlib deflate at {@link Deflater#BEST_SPEED}. The zlib trailer holds an Adler-32 of the data, so a
+     * damaged row fails to decode instead of returning a wrong body.
+     */
+    DEFLATE {
+        @Override
+        public byte[] compress(byte[] data, int offset, int length) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(data, offset, length);
+                deflater.finish();
+
+                byte[] buffer = BUFFERS.get();
+                ByteArrayOutputStream deflated = new ByteArrayOutputStream(Math.min(length, buffer.length));
+                while (!deflater.finished()) {
+                    deflated.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return deflated.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decompress(byte[] stored) {
+            byte[] buffer = BUFFERS.get();
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream(stored.length * 4);
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(stored);
+                while (!inflater.finished()) {
+                    int length = inflater.inflate(buffer);
+                    inflated.write(buffer, 0, length);
+                    if (!inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IllegalStateException("Truncated deflated data body");
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt deflated data body", e);
+            } finally {
+                inflater.end();
+            }
+            return inflated.toByteArray();
+        }
+    };
+
+    /**
+     * Codec tried first for new rows.
+     */
+    public static final BodyCodecEnum PREFERRED = DEFLATE;
+
+    // Deflater and Inflater hold native zlib state that is only freed by end(), not when a thread ends, so
+    // one is created and ended per call rather than kept per thread, as request threads may be virtual.
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    public abstract byte[] compress(byte[] data, int offset, int length);
+
+    public abstract byte[] decompress(byte[] stored);
+
+    public byte[] encode(String body) {
+        byte[] data = body.getBytes(StandardCharsets.UTF_8);
+        return compress(data, 0, data.length);
+    }
+
+    public String decode(byte[] stored) {
+        return new String(decompress(stored), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+package com.db.dataplatform.techtest.server.persistence;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence based id generator handing out ids in blocks, sized by the {@value #BLOCK_SIZE_SETTING} setting,
+ * so a sequence round trip is only needed once per block instead of once per insert.
+ * <p>
+ * Uses the {@code pooled} optimizer: the sequence value is the upper bound of the block that the caller
+ * owns. Every server instance and every restart draws fresh blocks from the database sequence, so ids
+ * stay unique as long as the sequence increments by the same block size, which
+ * {@link com.db.dataplatform.techtest.EmbeddedDataSourceConfiguration} enforces at startup.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String NAME = "com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator";
+    public static final String BLOCK_SIZE_SETTING = "techtest.id.block-size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_BLOCK_SIZE);
+
+        params.setProperty(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+}
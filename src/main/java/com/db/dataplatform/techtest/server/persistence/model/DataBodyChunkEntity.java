@@ -0,0 +1,77 @@
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import com.db.dataplatform.techtest.server.persistence.BodyCodecEnum;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * One chunk of a body too large to be stored in its {@link DataBodyContentEntity}, encoded like an inline body.
+ * A chunk holds a slice of the UTF-8 bytes of the body, so a character may span two chunks.
+ */
+@Entity
+@Table(name = "DATA_BODY_CHUNK")
+@IdClass(DataBodyChunkEntity.ChunkId.class)
+@Getter
+@NoArgsConstructor
+public class DataBodyChunkEntity {
+
+    @Id
+    @Column(name = "DATA_BODY_CONTENT_ID")
+    private Long dataBodyContentId;
+
+    @Id
+    @Column(name = "CHUNK_INDEX")
+    private int chunkIndex;
+
+    @Column(name = "DATA")
+    @Getter(AccessLevel.NONE)
+    private byte[] storedData;
+
+    @Column(name = "CODEC")
+    @Enumerated(EnumType.STRING)
+    private BodyCodecEnum codec;
+
+    public DataBodyChunkEntity(Long dataBodyContentId, int chunkIndex, byte[] data, int length) {
+        this.dataBodyContentId = dataBodyContentId;
+        this.chunkIndex = chunkIndex;
+        byte[] encoded = BodyCodecEnum.PREFERRED.compress(data, 0, length);
+        if (encoded.length < length) {
+            codec = BodyCodecEnum.PREFERRED;
+            storedData = encoded;
+        } else {
+            codec = BodyCodecEnum.NONE;
+            storedData = BodyCodecEnum.NONE.compress(data, 0, length);
+        }
+    }
+
+    public byte[] getData() {
+        return codec.decompress(storedData);
+    }
+
+    @Setter
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    public static class ChunkId implements Serializable {
+
+        private Long dataBodyContentId;
+        private int chunkIndex;
+
+        public ChunkId(Long dataBodyContentId, int chunkIndex) {
+            this.dataBodyContentId = dataBodyContentId;
+            this.chunkIndex = chunkIndex;
+        }
+    }
+}
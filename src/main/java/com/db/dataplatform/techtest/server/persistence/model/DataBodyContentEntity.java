@@ -0,0 +1,158 @@
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.persistence.BodyCodecEnum;
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.Instant;
+
+/**
+ * A distinct data body, stored once and referenced by every {@link DataBodyEntity} with the same content.
+ * Contents are addressed by the {@link #CONTENT_HASH_ALGORITHM} hash of their UTF-8 bytes, and count the
+ * data bodies referencing them.
+ * <p>
+ * The body is stored encoded with the {@link BodyCodecEnum#PREFERRED preferred codec}, or as plain UTF-8
+ * when that would not be smaller, and decoded again when the entity is loaded. Setting the body of a loaded
+ * entity clears its codec, so that Hibernate sees the row changed and the body is encoded again on update.
+ * Bodies of more than
+ * {@link #MAX_STORED_BODY_BYTES} are stored as {@link DataBodyChunkEntity} rows instead. Such an entity has
+ * {@link #dataBodyChunks} set and no {@link #dataBody}; the body is only ever read chunk by chunk.
+ */
+@Entity
+@Table(name = "DATA_BODY_CONTENT")
+@Setter
+@Getter
+public class DataBodyContentEntity {
+
+    public static final int MAX_STORED_BODY_BYTES = 4000;
+    public static final ChecksumAlgorithmEnum CONTENT_HASH_ALGORITHM = ChecksumAlgorithmEnum.SHA256;
+
+    @Id
+    @GenericGenerator(name = "dataBodyContentSequenceGenerator", strategy = PooledSequenceGenerator.NAME,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SEQ_DATA_BODY_CONTENT"))
+    @GeneratedValue(generator = "dataBodyContentSequenceGenerator")
+    @Column(name = "DATA_BODY_CONTENT_ID")
+    private Long dataBodyContentId;
+
+    /**
+     * Lower case hex hash of the body, null only while the chunks of a streamed body are being written.
+     */
+    @Column(name = "CONTENT_HASH")
+    private String contentHash;
+
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private String dataBody;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String encodedDataBody;
+
+    @Column(name = "DATA_BODY", length = MAX_STORED_BODY_BYTES)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] storedDataBody;
+
+    @Column(name = "DATA_BODY_CODEC")
+    @Enumerated(EnumType.STRING)
+    @Setter(AccessLevel.NONE)
+    private BodyCodecEnum dataBodyCodec;
+
+    /**
+     * Number of chunk rows holding the body, 0 when it is stored in this row.
+     */
+    @Column(name = "DATA_BODY_CHUNKS")
+    private int dataBodyChunks;
+
+    /**
+     * UTF-8 length of the body.
+     */
+    @Column(name = "DATA_BODY_BYTES")
+    private long dataBodyBytes;
+
+    /**
+     * Data bodies referencing this content. Only ever changed by a relative update in the database, so
+     * concurrent references are all counted.
+     */
+    @Column(name = "REFERENCE_COUNT")
+    private int referenceCount = 1;
+
+    @Column(name = "CREATED_TIMESTAMP")
+    private Instant createdTimestamp;
+
+    @PrePersist
+    public void setTimestamps() {
+        if (createdTimestamp == null) {
+            createdTimestamp = Instant.now();
+        }
+        encodeDataBody();
+    }
+
+    public void setDataBody(String dataBody) {
+        if (dataBody != this.dataBody) {
+            encodedDataBody = null;
+            dataBodyCodec = null;
+        }
+        this.dataBody = dataBody;
+    }
+
+    @PreUpdate
+    public void encodeDataBody() {
+        if (dataBody != null && dataBody == encodedDataBody) {
+            return;
+        }
+        encodedDataBody = dataBody;
+        if (dataBody == null) {
+            dataBodyCodec = BodyCodecEnum.NONE;
+            storedDataBody = null;
+            return;
+        }
+        byte[] plain = BodyCodecEnum.NONE.encode(dataBody);
+        byte[] encoded = BodyCodecEnum.PREFERRED.compress(plain, 0, plain.length);
+        if (encoded.length < plain.length) {
+            dataBodyCodec = BodyCodecEnum.PREFERRED;
+            storedDataBody = encoded;
+        } else {
+            dataBodyCodec = BodyCodecEnum.NONE;
+            storedDataBody = plain;
+        }
+        dataBodyBytes = plain.length;
+    }
+
+    @PostLoad
+    public void decodeDataBody() {
+        dataBody = storedDataBody == null ? null : dataBodyCodec.decode(storedDataBody);
+    }
+
+    /**
+     * Encodes the body if needed, so the encoding is reused when the entity is persisted.
+     *
+     * @return whether the encoded body fits in the {@code DATA_BODY} column.
+     */
+    public boolean fitsInRow() {
+        encodeDataBody();
+        return storedDataBody == null || storedDataBody.length <= MAX_STORED_BODY_BYTES;
+    }
+
+    public boolean isChunked() {
+        return dataBodyChunks > 0;
+    }
+}
@@ -1,61 +1,82 @@
-package com.db.dataplatform.techtest.server.persistence.model;
-
-import lombok.Getter;
-import lombok.Setter;
-
-import javax.persistence.CascadeType;
-import javax.persistence.Column;
-import javax.persistence.Entity;
-import javax.persistence.FetchType;
-import javax.persistence.GeneratedValue;
-import javax.persistence.Id;
-import javax.persistence.JoinColumn;
-import javax.persistence.OneToOne;
-import javax.persistence.PrePersist;
-import javax.persistence.SequenceGenerator;
-import javax.persistence.Table;
-import java.time.Instant;
-import java.util.Objects;
-
-@Entity
-@Table(name = "DATA_STORE")
-@Setter
-@Getter
-public class DataBodyEntity {
-
-    @Id
-    @SequenceGenerator(name = "dataStoreSequenceGenerator", sequenceName = "SEQ_DATA_STORE", allocationSize = 1)
-    @GeneratedValue(generator = "dataStoreSequenceGenerator")
-    @Column(name = "DATA_STORE_ID")
-    private Long dataStoreId;
-
-    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-    @JoinColumn(name = "DATA_HEADER_ID")
-    private DataHeaderEntity dataHeaderEntity;
-
-    @Column(name = "DATA_BODY")
-    private String dataBody;
-
-    @Column(name = "CREATED_TIMESTAMP")
-    private Instant createdTimestamp;
-
-    @PrePersist
-    public void setTimestamps() {
-        if (createdTimestamp == null) {
-            createdTimestamp = Instant.now();
-        }
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        DataBodyEntity that = (DataBodyEntity) o;
-        return Objects.equals(dataHeaderEntity, that.dataHeaderEntity) && Objects.equals(dataBody, that.dataBody);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(dataHeaderEntity, dataBody);
-    }
-}
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.CascadeType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Links a data header to its body. The body itself is stored once per distinct content as a
+ * {@link DataBodyContentEntity}; {@link #dataBody} only holds a body that has not been stored yet.
+ */
+@Entity
+@Table(name = "DATA_STORE")
+@Setter
+@Getter
+public class DataBodyEntity {
+
+    @Id
+    @GenericGenerator(name = "dataStoreSequenceGenerator", strategy = PooledSequenceGenerator.NAME,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SEQ_DATA_STORE"))
+    @GeneratedValue(generator = "dataStoreSequenceGenerator")
+    @Column(name = "DATA_STORE_ID")
+    private Long dataStoreId;
+
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @JoinColumn(name = "DATA_HEADER_ID")
+    private DataHeaderEntity dataHeaderEntity;
+
+    @ManyToOne(cascade = CascadeType.DETACH, fetch = FetchType.EAGER, optional = false)
+    @JoinColumn(name = "DATA_BODY_CONTENT_ID")
+    private DataBodyContentEntity content;
+
+    @Transient
+    private String dataBody;
+
+    @Column(name = "CREATED_TIMESTAMP")
+    private Instant createdTimestamp;
+
+    @PrePersist
+    public void setTimestamps() {
+        if (createdTimestamp == null) {
+            createdTimestamp = Instant.now();
+        }
+    }
+
+    /**
+     * @return the stored body once there is a content, null if that is stored in chunks.
+     */
+    public String getDataBody() {
+        return content != null ? content.getDataBody() : dataBody;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DataBodyEntity that = (DataBodyEntity) o;
+        return Objects.equals(dataHeaderEntity, that.dataHeaderEntity) && Objects.equals(getDataBody(), that.getDataBody());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(dataHeaderEntity, getDataBody());
+    }
+}
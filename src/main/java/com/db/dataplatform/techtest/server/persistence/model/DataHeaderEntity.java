@@ -1,8 +1,12 @@
 package com.db.dataplatform.techtest.server.persistence.model;
 
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -11,7 +15,6 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.PrePersist;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
 import java.time.Instant;
@@ -27,7 +30,8 @@ import java.util.Objects;
 public class DataHeaderEntity {
 
     @Id
-    @SequenceGenerator(name = "dataHeaderSequenceGenerator", sequenceName = "SEQ_DATA_HEADER", allocationSize = 1)
+    @GenericGenerator(name = "dataHeaderSequenceGenerator", strategy = PooledSequenceGenerator.NAME,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SEQ_DATA_HEADER"))
     @GeneratedValue(generator = "dataHeaderSequenceGenerator")
     @Column(name = "DATA_HEADER_ID")
     private Long dataHeaderId;
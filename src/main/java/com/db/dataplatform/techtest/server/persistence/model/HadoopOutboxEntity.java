@@ -0,0 +1,80 @@
+package com.db.dataplatform.techtest.server.persistence.model;
+
+import com.db.dataplatform.techtest.server.persistence.OutboxStatusEnum;
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Pending push of a data envelope to the Hadoop server. Rows are written in the same transaction as the
+ * data itself and drained asynchronously by the outbox dispatcher.
+ */
+@Entity
+@Table(name = "HADOOP_OUTBOX")
+@Setter
+@Getter
+public class HadoopOutboxEntity {
+
+    @Id
+    @GenericGenerator(name = "hadoopOutboxSequenceGenerator", strategy = PooledSequenceGenerator.NAME,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "SEQ_HADOOP_OUTBOX"))
+    @GeneratedValue(generator = "hadoopOutboxSequenceGenerator")
+    @Column(name = "HADOOP_OUTBOX_ID")
+    private Long hadoopOutboxId;
+
+    @Column(name = "DATA_HEADER_NAME")
+    private String dataHeaderName;
+
+    @Lob
+    @Column(name = "PAYLOAD")
+    private String payload;
+
+    /**
+     * The payload is the envelope without its body, which is read from the data store when it is pushed.
+     */
+    @Column(name = "BODY_STORED")
+    private boolean bodyStored;
+
+    @Column(name = "STATUS")
+    @Enumerated(EnumType.STRING)
+    private OutboxStatusEnum status;
+
+    @Column(name = "ATTEMPTS")
+    private int attempts;
+
+    @Column(name = "NEXT_ATTEMPT_TIMESTAMP")
+    private Instant nextAttemptTimestamp;
+
+    @Column(name = "CLAIMED_TIMESTAMP")
+    private Instant claimedTimestamp;
+
+    @Column(name = "CREATED_TIMESTAMP")
+    private Instant createdTimestamp;
+
+    @PrePersist
+    public void setTimestamps() {
+        if (createdTimestamp == null) {
+            createdTimestamp = Instant.now();
+        }
+        if (nextAttemptTimestamp == null) {
+            nextAttemptTimestamp = createdTimestamp;
+        }
+        if (status == null) {
+            status = OutboxStatusEnum.PENDING;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.db.dataplatform.techtest.server.persistence.repository;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyChunkEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataBodyChunkRepository extends JpaRepository<DataBodyChunkEntity, DataBodyChunkEntity.ChunkId> {
+
+    @Modifying
+    @Query("delete from DataBodyChunkEntity c where c.dataBodyContentId = :id")
+    int deleteByDataBodyContentId(@Param("id") Long dataBodyContentId);
+}
@@ -0,0 +1,28 @@
+package com.db.dataplatform.techtest.server.persistence.repository;
+
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DataBodyContentRepository extends JpaRepository<DataBodyContentEntity, Long> {
+
+    Optional<DataBodyContentEntity> findByContentHash(String contentHash);
+
+    List<DataBodyContentEntity> findByContentHashIn(Collection<String> contentHashes);
+
+    /**
+     * Relative update, so references added by concurrent transactions are not lost.
+     */
+    @Modifying
+    @Query("update DataBodyContentEntity c set c.referenceCount = c.referenceCount + :references"
+            + " where c.dataBodyContentId = :id")
+    int addReferences(@Param("id") Long dataBodyContentId, @Param("references") int references);
+}
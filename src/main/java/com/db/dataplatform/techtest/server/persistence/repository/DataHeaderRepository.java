@@ -1,10 +1,29 @@
 package com.db.dataplatform.techtest.server.persistence.repository;
 
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface DataHeaderRepository extends JpaRepository<DataHeaderEntity, Long> {
 
+    /**
+     * Answered from the unique name index alone, without reading the headers or their bodies.
+     */
+    @Query("select h.name from DataHeaderEntity h where h.name in :names")
+    List<String> findNamesByNameIn(@Param("names") Collection<String> names);
+
+    /**
+     * Set-based block type change, a single statement without loading the headers or their bodies.
+     */
+    @Modifying
+    @Query("update DataHeaderEntity h set h.blocktype = :blockType where h.name in :names")
+    int updateBlocktypeByNameIn(@Param("names") Collection<String> names, @Param("blockType") BlockTypeEnum blockType);
 }
@@ -2,16 +2,51 @@ package com.db.dataplatform.techtest.server.persistence.repository;
 
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface DataStoreRepository extends JpaRepository<DataBodyEntity, Long> {
 
-    List<DataBodyEntity> findByDataHeaderEntityBlocktype(BlockTypeEnum blockType);
+    int STREAM_FETCH_SIZE = 500;
+
+    @Query("select b from DataBodyEntity b join fetch b.dataHeaderEntity h join fetch b.content"
+            + " where h.blocktype = :blockType")
+    List<DataBodyEntity> findByDataHeaderEntityBlocktype(@Param("blockType") BlockTypeEnum blockType);
+
+    /**
+     * Cursor over the bodies of a block type; must be consumed and closed within a transaction.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select b from DataBodyEntity b join fetch b.dataHeaderEntity h join fetch b.content"
+            + " where h.blocktype = :blockType")
+    Stream<DataBodyEntity> streamByDataHeaderEntityBlocktype(@Param("blockType") BlockTypeEnum blockType);
+
+    /**
+     * Keyset page: the bodies of a block type with a header id greater than {@code after}, in header id order.
+     * Headers and bodies are one to one, and seeking and ordering on the header id lets IDX_DATA_HEADER_BLOCKTYPE
+     * (BLOCKTYPE, DATA_HEADER_ID) serve both; the constant block type is part of the order so that the database
+     * recognises the index order. The pageable is only expected to carry the page size.
+     */
+    @Query("select b from DataBodyEntity b join fetch b.dataHeaderEntity h join fetch b.content"
+            + " where h.blocktype = :blockType and h.dataHeaderId > :after order by h.blocktype, h.dataHeaderId")
+    List<DataBodyEntity> findPageByDataHeaderEntityBlocktype(@Param("blockType") BlockTypeEnum blockType,
+                                                             @Param("after") long after, Pageable pageable);
 
-    Optional<DataBodyEntity> findByDataHeaderEntityName(String name);
+    @Query("select b from DataBodyEntity b join fetch b.dataHeaderEntity h join fetch b.content where h.name = :name")
+    Optional<DataBodyEntity> findByDataHeaderEntityName(@Param("name") String name);
 }
@@ -0,0 +1,46 @@
+package com.db.dataplatform.techtest.server.persistence.repository;
+
+import com.db.dataplatform.techtest.server.persistence.OutboxStatusEnum;
+import com.db.dataplatform.techtest.server.persistence.model.HadoopOutboxEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface HadoopOutboxRepository extends JpaRepository<HadoopOutboxEntity, Long> {
+
+    List<HadoopOutboxEntity> findByStatusAndNextAttemptTimestampLessThanEqualOrderByHadoopOutboxIdAsc(
+            OutboxStatusEnum status, Instant now, Pageable pageable);
+
+    long countByStatus(OutboxStatusEnum status);
+
+    /**
+     * Conditional status transition, used to claim a row. Only one caller (thread or server instance)
+     * can move a row out of a given status, the others see 0 updated rows.
+     */
+    @Modifying
+    @Query("update HadoopOutboxEntity o set o.status = :to, o.claimedTimestamp = :now "
+            + "where o.hadoopOutboxId = :id and o.status = :from")
+    int transition(@Param("id") Long id, @Param("from") OutboxStatusEnum from,
+                   @Param("to") OutboxStatusEnum to, @Param("now") Instant now);
+
+    /**
+     * Deletes a row only while it still holds the given claim, so a row whose claim expired and was taken by
+     * another caller is left to that caller. Returns 0 when the claim no longer holds.
+     */
+    @Modifying
+    @Query("delete from HadoopOutboxEntity o where o.hadoopOutboxId = :id and o.claimedTimestamp = :claimed")
+    int deleteClaimed(@Param("id") Long id, @Param("claimed") Instant claimed);
+
+    @Modifying
+    @Query("update HadoopOutboxEntity o set o.status = :to, o.claimedTimestamp = null "
+            + "where o.status = :from and o.claimedTimestamp < :cutoff")
+    int releaseClaimsOlderThan(@Param("from") OutboxStatusEnum from, @Param("to") OutboxStatusEnum to,
+                               @Param("cutoff") Instant cutoff);
+}
@@ -3,11 +3,25 @@ package com.db.dataplatform.techtest.server.service;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface DataBodyService {
     void saveDataBody(DataBodyEntity dataBody);
+    void saveDataBodies(List<DataBodyEntity> dataBodies);
+    void saveDataBody(DataBodyEntity dataBody, InputStream body) throws IOException;
+    void writeDataBody(DataBodyEntity dataBody, OutputStream out) throws IOException;
+    InputStream openDataBody(DataBodyEntity dataBody);
     List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType);
+    List<DataBodyEntity> getDataByBlockTypeAfter(BlockTypeEnum blockType, long afterId, int limit);
+    long forEachByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer);
     Optional<DataBodyEntity> getDataByBlockName(String blockName);
+    Set<String> findExistingNames(Collection<String> names);
+    int updateBlockTypeByNames(Collection<String> names, BlockTypeEnum blockType);
 }
@@ -0,0 +1,20 @@
+package com.db.dataplatform.techtest.server.service;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.OutboxBacklog;
+import com.db.dataplatform.techtest.server.persistence.model.HadoopOutboxEntity;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+public interface HadoopOutboxService {
+    void enqueue(DataEnvelope envelope);
+    void enqueueAll(List<DataEnvelope> envelopes);
+    List<HadoopOutboxEntity> claimBatch(int maxSize, int minSize, Duration maxDelay);
+    DataEnvelope readPayload(HadoopOutboxEntity entry) throws IOException;
+    void markDelivered(HadoopOutboxEntity entry);
+    void markFailed(HadoopOutboxEntity entry, int maxAttempts, Duration retryBackoff);
+    int releaseStaleClaims(Duration claimLease);
+    OutboxBacklog getBacklog();
+}
@@ -1,33 +1,415 @@
-package com.db.dataplatform.techtest.server.service.impl;
-
-import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
-import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
-import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
-import com.db.dataplatform.techtest.server.service.DataBodyService;
-import lombok.RequiredArgsConstructor;
-import org.springframework.stereotype.Service;
-
-import java.util.List;
-import java.util.Optional;
-
-@Service
-@RequiredArgsConstructor
-public class DataBodyServiceImpl implements DataBodyService {
-
-    private final DataStoreRepository dataStoreRepository;
-
-    @Override
-    public void saveDataBody(DataBodyEntity dataBody) {
-        dataStoreRepository.save(dataBody);
-    }
-
-    @Override
-    public List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType) {
-        return dataStoreRepository.findByDataHeaderEntityBlocktype(blockType);
-    }
-
-    @Override
-    public Optional<DataBodyEntity> getDataByBlockName(String blockName) {
-        return dataStoreRepository.findByDataHeaderEntityName(blockName);
-    }
-}
+package com.db.dataplatform.techtest.server.service.impl;
+
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.checksum.ChecksumInputStream;
+import com.db.dataplatform.techtest.server.component.BodyStoreMetrics;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyChunkEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataBodyChunkRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataBodyContentRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity.CONTENT_HASH_ALGORITHM;
+
+@Service
+@RequiredArgsConstructor
+public class DataBodyServiceImpl implements DataBodyService {
+
+    /** Keeps the IN list within the limits of common databases. */
+    static final int MAX_IN_LIST_SIZE = 1000;
+
+    static final String CLAIM_CONTENT_HASH_SQL =
+            "update DATA_BODY_CONTENT set CONTENT_HASH = ? where DATA_BODY_CONTENT_ID = ?";
+
+    @Value("${storage.body.chunk-size:65536}")
+    public int chunkSize;
+
+    private final DataStoreRepository dataStoreRepository;
+    private final DataHeaderRepository dataHeaderRepository;
+    private final DataBodyContentRepository dataBodyContentRepository;
+    private final DataBodyChunkRepository dataBodyChunkRepository;
+    private final ChecksumCalculator checksumCalculator;
+    private final BodyStoreMetrics bodyStoreMetrics;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void saveDataBody(DataBodyEntity dataBody) {
+        saveDataBodies(Collections.singletonList(dataBody));
+    }
+
+    /**
+     * Bodies are stored by content: a body identical to one already stored, or to one earlier in the list,
+     * only adds a reference to that content. Existing contents are looked up by hash, one query per
+     * {@link #MAX_IN_LIST_SIZE} distinct bodies. A new content too large for its row once encoded is stored
+     * in chunks. New contents are stored before their hashes are claimed, see {@link #claimContentHash}, so
+     * a body stored by a concurrent transaction in the meantime is referenced rather than failing the save.
+     * The chunks of a content are only written once its hash is claimed.
+     */
+    @Override
+    @Transactional
+    public void saveDataBodies(List<DataBodyEntity> dataBodies) {
+        List<String> hashes = new ArrayList<>(dataBodies.size());
+        for (DataBodyEntity dataBody : dataBodies) {
+            hashes.add(checksumCalculator.checksum(dataBody.getDataBody(), CONTENT_HASH_ALGORITHM));
+        }
+        Map<String, DataBodyContentEntity> contents = findContents(hashes);
+        Map<String, DataBodyContentEntity> newContents = new LinkedHashMap<>();
+        Map<String, String> newBodies = new HashMap<>();
+        for (int i = 0; i < dataBodies.size(); i++) {
+            if (!contents.containsKey(hashes.get(i)) && !newContents.containsKey(hashes.get(i))) {
+                newContents.put(hashes.get(i), storeContent(dataBodies.get(i).getDataBody()));
+                newBodies.put(hashes.get(i), dataBodies.get(i).getDataBody());
+            }
+        }
+        Set<DataBodyContentEntity> stored = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (!newContents.isEmpty()) {
+            entityManager.flush();
+            newContents.forEach((hash, content) -> {
+                DataBodyContentEntity claimed = claimContentHash(content, hash);
+                contents.put(hash, claimed);
+                if (claimed == content) {
+                    storeChunks(content, newBodies.get(hash));
+                    stored.add(content);
+                }
+            });
+        }
+
+        Map<Long, Integer> references = new LinkedHashMap<>();
+        BodyStoreMetrics.Counts counts = new BodyStoreMetrics.Counts();
+        for (int i = 0; i < dataBodies.size(); i++) {
+            DataBodyContentEntity content = contents.get(hashes.get(i));
+            if (stored.remove(content)) {
+                counts.stored(content.getDataBodyBytes());
+            } else {
+                references.merge(content.getDataBodyContentId(), 1, Integer::sum);
+                counts.deduplicated(content.getDataBodyBytes());
+            }
+            dataBodies.get(i).setContent(content);
+        }
+        references.forEach(dataBodyContentRepository::addReferences);
+        dataStoreRepository.saveAll(dataBodies);
+        bodyStoreMetrics.record(counts);
+    }
+
+    /**
+     * The body is read one chunk at a time. A body that ends within the first chunk is saved like any other;
+     * otherwise every chunk is written and detached before the next one is read, so at most one chunk of the
+     * body is held in memory. As the hash of such a body is only known once it has been read, its chunks are
+     * written under a new content, which is dropped again if an identical content turns out to exist, or to
+     * have been stored concurrently.
+     */
+    @Override
+    @Transactional
+    public void saveDataBody(DataBodyEntity dataBody, InputStream body) throws IOException {
+        ChecksumInputStream hashed = new ChecksumInputStream(body, CONTENT_HASH_ALGORITHM);
+        byte[] chunk = new byte[chunkSize];
+        int length = readChunk(hashed, chunk);
+        if (length < chunk.length) {
+            dataBody.setDataBody(new String(chunk, 0, length, StandardCharsets.UTF_8));
+            saveDataBodies(Collections.singletonList(dataBody));
+            return;
+        }
+
+        DataBodyContentEntity content = new DataBodyContentEntity();
+        storeChunks(content, hashed, chunk, length);
+        String hash = hashed.getChecksum();
+        BodyStoreMetrics.Counts counts = new BodyStoreMetrics.Counts();
+        Optional<DataBodyContentEntity> existing = dataBodyContentRepository.findByContentHash(hash);
+        DataBodyContentEntity claimed;
+        if (existing.isPresent()) {
+            dropContent(content);
+            claimed = existing.get();
+        } else {
+            entityManager.flush();
+            claimed = claimContentHash(content, hash);
+        }
+        if (claimed == content) {
+            counts.stored(content.getDataBodyBytes());
+        } else {
+            content = claimed;
+            dataBodyContentRepository.addReferences(content.getDataBodyContentId(), 1);
+            counts.deduplicated(content.getDataBodyBytes());
+        }
+
+        dataBody.setDataBody(null);
+        dataBody.setContent(content);
+        dataStoreRepository.save(dataBody);
+        bodyStoreMetrics.record(counts);
+    }
+
+    /**
+     * Chunks are loaded one at a time, each in its own read, so writing a body takes no more memory than
+     * its largest chunk.
+     */
+    @Override
+    public void writeDataBody(DataBodyEntity dataBody, OutputStream out) throws IOException {
+        DataBodyContentEntity content = dataBody.getContent();
+        if (!content.isChunked()) {
+            out.write(content.getDataBody().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        for (int index = 0; index < content.getDataBodyChunks(); index++) {
+            out.write(findChunk(content, index).getData());
+        }
+    }
+
+    /**
+     * Like {@link #writeDataBody}, each chunk is only loaded once the stream has been read up to it.
+     */
+    @Override
+    public InputStream openDataBody(DataBodyEntity dataBody) {
+        DataBodyContentEntity content = dataBody.getContent();
+        if (!content.isChunked()) {
+            return new ByteArrayInputStream(content.getDataBody().getBytes(StandardCharsets.UTF_8));
+        }
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private int index;
+
+            @Override
+            public boolean hasMoreElements() {
+                return index < content.getDataBodyChunks();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return new ByteArrayInputStream(findChunk(content, index++).getData());
+            }
+        });
+    }
+
+    @Override
+    public List<DataBodyEntity> getDataByBlockType(BlockTypeEnum blockType) {
+        return dataStoreRepository.findByDataHeaderEntityBlocktype(blockType);
+    }
+
+    @Override
+    public List<DataBodyEntity> getDataByBlockTypeAfter(BlockTypeEnum blockType, long afterId, int limit) {
+        return dataStoreRepository.findPageByDataHeaderEntityBlocktype(blockType, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Rows are read through a database cursor and detached once consumed, so the persistence context
+     * does not grow with the size of the result.
+     */
+    @Override
+    public long forEachByBlockType(BlockTypeEnum blockType, Consumer<DataBodyEntity> consumer) {
+        long count = 0;
+        try (Stream<DataBodyEntity> dataBodies = dataStoreRepository.streamByDataHeaderEntityBlocktype(blockType)) {
+            Iterator<DataBodyEntity> iterator = dataBodies.iterator();
+            while (iterator.hasNext()) {
+                DataBodyEntity dataBody = iterator.next();
+                consumer.accept(dataBody);
+                entityManager.detach(dataBody);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Map<String, DataBodyContentEntity> findContents(List<String> hashes) {
+        List<String> distinctHashes = new ArrayList<>(new LinkedHashSet<>(hashes));
+        Map<String, DataBodyContentEntity> contents = new HashMap<>();
+        for (int from = 0; from < distinctHashes.size(); from += MAX_IN_LIST_SIZE) {
+            List<String> slice = distinctHashes.subList(from, Math.min(from + MAX_IN_LIST_SIZE, distinctHashes.size()));
+            for (DataBodyContentEntity content : dataBodyContentRepository.findByContentHashIn(slice)) {
+                contents.put(content.getContentHash(), content);
+            }
+        }
+        return contents;
+    }
+
+    /**
+     * Persists a new content without its hash, see {@link #claimContentHash}. A body too large for the row is
+     * not stored yet, only its length and number of chunks, see {@link #storeChunks(DataBodyContentEntity, String)}.
+     */
+    private DataBodyContentEntity storeContent(String body) {
+        DataBodyContentEntity content = new DataBodyContentEntity();
+        content.setDataBody(body);
+        if (!content.fitsInRow()) {
+            int length = body.getBytes(StandardCharsets.UTF_8).length;
+            content.setDataBody(null);
+            content.setDataBodyBytes(length);
+            content.setDataBodyChunks((length + chunkSize - 1) / chunkSize);
+        }
+        entityManager.persist(content);
+        return content;
+    }
+
+    /**
+     * Sets the hash of a content stored, and flushed, without one. This is done with a statement of its own
+     * rather than through the persistence context, and within a savepoint, so that when a concurrent
+     * transaction has stored the same body in the meantime, only that statement is rolled back on the unique
+     * hash and not the transaction, also on databases such as PostgreSQL which otherwise abort the whole
+     * transaction on a failed statement. The content is then dropped again and the one stored concurrently
+     * is returned instead.
+     * <p>
+     * The savepoint is set on the JDBC connection of the surrounding transaction, as the JPA transaction
+     * manager does not support nested transactions with Hibernate.
+     *
+     * @return the content now holding the body, the given one if its hash was claimed.
+     */
+    private DataBodyContentEntity claimContentHash(DataBodyContentEntity content, String hash) {
+        DuplicateKeyException duplicate = jdbcTemplate.execute((ConnectionCallback<DuplicateKeyException>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                jdbcTemplate.update(CLAIM_CONTENT_HASH_SQL, hash, content.getDataBodyContentId());
+            } catch (DuplicateKeyException e) {
+                connection.rollback(savepoint);
+                return e;
+            }
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+        if (duplicate != null) {
+            DataBodyContentEntity existing = dataBodyContentRepository.findByContentHash(hash)
+                    .orElseThrow(() -> duplicate);
+            dropContent(content);
+            return existing;
+        }
+        content.setContentHash(hash);
+        entityManager.detach(content);
+        return content;
+    }
+
+    private void dropContent(DataBodyContentEntity content) {
+        if (content.isChunked()) {
+            dataBodyChunkRepository.deleteByDataBodyContentId(content.getDataBodyContentId());
+        }
+        entityManager.remove(content);
+    }
+
+    /**
+     * Stores the chunks of a content persisted by {@link #storeContent}, if it has any.
+     */
+    private void storeChunks(DataBodyContentEntity content, String body) {
+        InputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        byte[] chunk = new byte[chunkSize];
+        try {
+            for (int index = 0; index < content.getDataBodyChunks(); index++) {
+                storeChunk(content, index, chunk, readChunk(in, chunk));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Persists the content without a body, then stores the body from {@code in} in chunks, the first
+     * {@code length} bytes of which have already been read into {@code chunk}.
+     */
+    private void storeChunks(DataBodyContentEntity content, InputStream in, byte[] chunk, int length)
+            throws IOException {
+        entityManager.persist(content);
+        int chunks = 0;
+        long bytes = 0;
+        while (length > 0) {
+            storeChunk(content, chunks, chunk, length);
+            chunks++;
+            bytes += length;
+            length = length < chunk.length ? 0 : readChunk(in, chunk);
+        }
+        content.setDataBodyChunks(chunks);
+        content.setDataBodyBytes(bytes);
+    }
+
+    /**
+     * The chunk is written and detached at once, so the persistence context never holds more than one.
+     */
+    private void storeChunk(DataBodyContentEntity content, int index, byte[] chunk, int length) {
+        DataBodyChunkEntity chunkEntity = new DataBodyChunkEntity(content.getDataBodyContentId(), index, chunk, length);
+        entityManager.persist(chunkEntity);
+        entityManager.flush();
+        entityManager.detach(chunkEntity);
+    }
+
+    private DataBodyChunkEntity findChunk(DataBodyContentEntity content, int index) {
+        DataBodyChunkEntity.ChunkId id = new DataBodyChunkEntity.ChunkId(content.getDataBodyContentId(), index);
+        return dataBodyChunkRepository.findById(id)
+                .orElseThrow(() -> new IllegalStateException("Missing chunk " + id.getChunkIndex()
+                        + " of data body content " + id.getDataBodyContentId()));
+    }
+
+    private static int readChunk(InputStream in, byte[] chunk) throws IOException {
+        int length = 0;
+        while (length < chunk.length) {
+            int read = in.read(chunk, length, chunk.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    @Override
+    public Optional<DataBodyEntity> getDataByBlockName(String blockName) {
+        return dataStoreRepository.findByDataHeaderEntityName(blockName);
+    }
+
+    /**
+     * Looked up in the unique name index, one query per {@link #MAX_IN_LIST_SIZE} distinct names.
+     */
+    @Override
+    public Set<String> findExistingNames(Collection<String> names) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < distinctNames.size(); from += MAX_IN_LIST_SIZE) {
+            List<String> slice = distinctNames.subList(from, Math.min(from + MAX_IN_LIST_SIZE, distinctNames.size()));
+            existing.addAll(dataHeaderRepository.findNamesByNameIn(slice));
+        }
+        return existing;
+    }
+
+    @Override
+    @Transactional
+    public int updateBlockTypeByNames(Collection<String> names, BlockTypeEnum blockType) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(names));
+        int updated = 0;
+        for (int from = 0; from < distinctNames.size(); from += MAX_IN_LIST_SIZE) {
+            List<String> chunk = distinctNames.subList(from, Math.min(from + MAX_IN_LIST_SIZE, distinctNames.size()));
+            updated += dataHeaderRepository.updateBlocktypeByNameIn(chunk, blockType);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,159 @@
+package com.db.dataplatform.techtest.server.service.impl;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.OutboxBacklog;
+import com.db.dataplatform.techtest.server.api.model.StreamedDataBody;
+import com.db.dataplatform.techtest.server.persistence.OutboxStatusEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.HadoopOutboxEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.HadoopOutboxRepository;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HadoopOutboxServiceImpl implements HadoopOutboxService {
+
+    private final HadoopOutboxRepository hadoopOutboxRepository;
+    private final DataBodyService dataBodyService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Must join the transaction persisting the data, so the push is recorded if and only if the data is.
+     */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(DataEnvelope envelope) {
+        hadoopOutboxRepository.save(toEntry(envelope));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<DataEnvelope> envelopes) {
+        hadoopOutboxRepository.saveAll(envelopes.stream().map(this::toEntry).collect(Collectors.toList()));
+    }
+
+    /**
+     * Nothing is claimed while fewer than {@code minSize} rows are due, unless the oldest of them has been
+     * due for {@code maxDelay}, so that small batches are only sent once they have waited long enough.
+     */
+    @Override
+    @Transactional
+    public List<HadoopOutboxEntity> claimBatch(int maxSize, int minSize, Duration maxDelay) {
+        // Truncated to the precision of CLAIMED_TIMESTAMP, so the claim can be matched again on delivery
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        List<HadoopOutboxEntity> candidates = hadoopOutboxRepository
+                .findByStatusAndNextAttemptTimestampLessThanEqualOrderByHadoopOutboxIdAsc(
+                        OutboxStatusEnum.PENDING, now, PageRequest.of(0, maxSize));
+        Instant dueBefore = now.minus(maxDelay);
+        if (candidates.size() < minSize
+                && candidates.stream().allMatch(entry -> entry.getNextAttemptTimestamp().isAfter(dueBefore))) {
+            return Collections.emptyList();
+        }
+
+        return candidates.stream()
+                .filter(entry -> hadoopOutboxRepository.transition(entry.getHadoopOutboxId(),
+                        OutboxStatusEnum.PENDING, OutboxStatusEnum.IN_FLIGHT, now) == 1)
+                .peek(entry -> entry.setClaimedTimestamp(now))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * An envelope queued with a {@link StreamedDataBody} is read back with one streaming its body from the
+     * data store again.
+     */
+    @Override
+    public DataEnvelope readPayload(HadoopOutboxEntity entry) throws IOException {
+        DataEnvelope envelope = objectMapper.readValue(entry.getPayload(), DataEnvelope.class);
+        if (!entry.isBodyStored()) {
+            return envelope;
+        }
+        DataBodyEntity dataBody = dataBodyService.getDataByBlockName(entry.getDataHeaderName())
+                .orElseThrow(() -> new IOException("No stored data body for data name " + entry.getDataHeaderName()));
+        return new DataEnvelope(envelope.getDataHeader(),
+                new StreamedDataBody(() -> dataBodyService.openDataBody(dataBody)),
+                envelope.getChecksum(), envelope.getChecksumAlgorithm());
+    }
+
+    /**
+     * A row whose claim expired while it was being pushed may have been claimed, delivered and deleted by
+     * another worker already; it is then left alone rather than failing the delivery.
+     */
+    @Override
+    @Transactional
+    public void markDelivered(HadoopOutboxEntity entry) {
+        if (hadoopOutboxRepository.deleteClaimed(entry.getHadoopOutboxId(), entry.getClaimedTimestamp()) == 0) {
+            log.debug("Outbox entry {} no longer claimed at {}, already delivered by another worker",
+                    entry.getHadoopOutboxId(), entry.getClaimedTimestamp());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void markFailed(HadoopOutboxEntity entry, int maxAttempts, Duration retryBackoff) {
+        hadoopOutboxRepository.findById(entry.getHadoopOutboxId()).ifPresent(current -> {
+            int attempts = current.getAttempts() + 1;
+            current.setAttempts(attempts);
+            current.setClaimedTimestamp(null);
+            current.setStatus(attempts >= maxAttempts ? OutboxStatusEnum.FAILED : OutboxStatusEnum.PENDING);
+            current.setNextAttemptTimestamp(Instant.now().plus(retryBackoff.multipliedBy(attempts)));
+            hadoopOutboxRepository.save(current);
+        });
+    }
+
+    @Override
+    @Transactional
+    public int releaseStaleClaims(Duration claimLease) {
+        return hadoopOutboxRepository.releaseClaimsOlderThan(OutboxStatusEnum.IN_FLIGHT, OutboxStatusEnum.PENDING,
+                Instant.now().minus(claimLease));
+    }
+
+    @Override
+    public OutboxBacklog getBacklog() {
+        return new OutboxBacklog(
+                hadoopOutboxRepository.countByStatus(OutboxStatusEnum.PENDING),
+                hadoopOutboxRepository.countByStatus(OutboxStatusEnum.IN_FLIGHT),
+                hadoopOutboxRepository.countByStatus(OutboxStatusEnum.FAILED));
+    }
+
+    /**
+     * A {@link StreamedDataBody} is not written into the payload, only a reference to the data store.
+     */
+    private HadoopOutboxEntity toEntry(DataEnvelope envelope) {
+        HadoopOutboxEntity entry = new HadoopOutboxEntity();
+        entry.setDataHeaderName(envelope.getDataHeader().getName());
+        if (envelope.getDataBody() instanceof StreamedDataBody) {
+            entry.setBodyStored(true);
+            envelope = new DataEnvelope(envelope.getDataHeader(), null, envelope.getChecksum(),
+                    envelope.getChecksumAlgorithm());
+        }
+        entry.setPayload(toJson(envelope));
+        return entry;
+    }
+
+    private String toJson(DataEnvelope envelope) {
+        try {
+            return objectMapper.writeValueAsString(envelope);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+create index if not exists IDX_DATA_HEADER_BLOCKTYPE on DATA_HEADER (BLOCKTYPE, DATA_HEADER_ID);
+
+create index if not exists IDX_DATA_HEADER_CREATED on DATA_HEADER (CREATED_TIMESTAMP);
+
+create index if not exists IDX_DATA_STORE_DATA_HEADER on DATA_STORE (DATA_HEADER_ID);
+
+create index if not exists IDX_DATA_STORE_CREATED on DATA_STORE (CREATED_TIMESTAMP);
+
+create index if not exists IDX_DATA_STORE_CONTENT on DATA_STORE (DATA_BODY_CONTENT_ID);
+
+-- created after IDX_DATA_STORE_DATA_HEADER so it is backed by that index
+alter table DATA_STORE add constraint if not exists FK_DS_DH FOREIGN KEY (DATA_HEADER_ID) REFERENCES DATA_HEADER (DATA_HEADER_ID);
+
+-- created after IDX_DATA_STORE_CONTENT so it is backed by that index
+alter table DATA_STORE add constraint if not exists FK_DS_DBC FOREIGN KEY (DATA_BODY_CONTENT_ID) REFERENCES DATA_BODY_CONTENT (DATA_BODY_CONTENT_ID);
@@ -1,8 +1,4 @@
-create sequence if not exists SEQ_DATA_HEADER;
-
-drop table if exists DATA_HEADER;
-
-create table DATA_HEADER
+create table if not exists DATA_HEADER
 (
     DATA_HEADER_ID      NUMBER NOT NULL,
     NAME                VARCHAR2(30 CHAR) NOT NULL,
@@ -12,16 +8,51 @@ create table DATA_HEADER
     CONSTRAINT UK_DATA_HEADER UNIQUE (NAME)
 );
 
-create sequence if not exists SEQ_DATA_STORE;
-
-drop table if exists DATA_STORE;
+create table if not exists DATA_BODY_CONTENT
+(
+    DATA_BODY_CONTENT_ID    NUMBER NOT NULL,
+    CONTENT_HASH            VARCHAR2(64 CHAR),
+    DATA_BODY               VARBINARY(4000),
+    DATA_BODY_CODEC         VARCHAR2(7 CHAR) DEFAULT 'NONE' NOT NULL,
+    DATA_BODY_CHUNKS        NUMBER(9) DEFAULT 0 NOT NULL,
+    DATA_BODY_BYTES         NUMBER NOT NULL,
+    REFERENCE_COUNT         NUMBER(9) DEFAULT 1 NOT NULL,
+    CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
+    CONSTRAINT PK_DATA_BODY_CONTENT PRIMARY KEY (DATA_BODY_CONTENT_ID),
+    CONSTRAINT UK_DATA_BODY_CONTENT UNIQUE (CONTENT_HASH)
+);
 
-create table DATA_STORE
+create table if not exists DATA_STORE
 (
     DATA_STORE_ID           NUMBER NOT NULL,
     DATA_HEADER_ID          NUMBER NOT NULL,
-    DATA_BODY               VARCHAR2(1000 CHAR) NOT NULL,
+    DATA_BODY_CONTENT_ID    NUMBER NOT NULL,
     CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
-    CONSTRAINT PK_DATA_STORE PRIMARY KEY (DATA_STORE_ID),
-    CONSTRAINT FK_DS_DH FOREIGN KEY (DATA_HEADER_ID) REFERENCES DATA_HEADER (DATA_HEADER_ID)
-);
\ No newline at end of file
+    CONSTRAINT PK_DATA_STORE PRIMARY KEY (DATA_STORE_ID)
+);
+
+create table if not exists DATA_BODY_CHUNK
+(
+    DATA_BODY_CONTENT_ID    NUMBER NOT NULL,
+    CHUNK_INDEX             NUMBER(9) NOT NULL,
+    DATA                    VARBINARY NOT NULL,
+    CODEC                   VARCHAR2(7 CHAR) NOT NULL,
+    CONSTRAINT PK_DATA_BODY_CHUNK PRIMARY KEY (DATA_BODY_CONTENT_ID, CHUNK_INDEX),
+    CONSTRAINT FK_DBC_DBC FOREIGN KEY (DATA_BODY_CONTENT_ID) REFERENCES DATA_BODY_CONTENT (DATA_BODY_CONTENT_ID)
+);
+
+create table if not exists HADOOP_OUTBOX
+(
+    HADOOP_OUTBOX_ID        NUMBER NOT NULL,
+    DATA_HEADER_NAME        VARCHAR2(30 CHAR) NOT NULL,
+    PAYLOAD                 CLOB NOT NULL,
+    BODY_STORED             NUMBER(1) DEFAULT 0 NOT NULL,
+    STATUS                  VARCHAR2(11 CHAR) NOT NULL,
+    ATTEMPTS                NUMBER(5) DEFAULT 0 NOT NULL,
+    NEXT_ATTEMPT_TIMESTAMP  TIMESTAMP (6) NOT NULL,
+    CLAIMED_TIMESTAMP       TIMESTAMP (6),
+    CREATED_TIMESTAMP       TIMESTAMP (6) NOT NULL,
+    CONSTRAINT PK_HADOOP_OUTBOX PRIMARY KEY (HADOOP_OUTBOX_ID)
+);
+
+create index if not exists IDX_HADOOP_OUTBOX_STATUS on HADOOP_OUTBOX (STATUS, NEXT_ATTEMPT_TIMESTAMP, HADOOP_OUTBOX_ID);
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.db.dataplatform.techtest.server.api.model.DataBody;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
 import com.db.dataplatform.techtest.server.api.model.DataHeader;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 
@@ -30,6 +31,13 @@ public class TestDataHelper {
         return dataBodyEntity;
     }
 
+    public static DataBodyContentEntity createTestDataBodyContentEntity() {
+        DataBodyContentEntity dataBodyContentEntity = new DataBodyContentEntity();
+        dataBodyContentEntity.setDataBody(DUMMY_DATA);
+        dataBodyContentEntity.setDataBodyBytes(DUMMY_DATA.length());
+        return dataBodyContentEntity;
+    }
+
     public static DataEnvelope createTestDataEnvelopeApiObject() {
         DataBody dataBody = new DataBody(DUMMY_DATA);
         DataHeader dataHeader = new DataHeader(TEST_NAME, BlockTypeEnum.BLOCKTYPEA);
@@ -1,35 +1,64 @@
 package com.db.dataplatform.techtest.api.controller;
 
 import com.db.dataplatform.techtest.TestDataHelper;
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
 import com.db.dataplatform.techtest.server.api.controller.ServerController;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.component.IngestExecutor;
+import com.db.dataplatform.techtest.server.component.NdjsonIngestor;
+import com.db.dataplatform.techtest.server.component.StoredDataBody;
+import com.db.dataplatform.techtest.server.exception.ChecksumMismatchException;
 import com.db.dataplatform.techtest.server.exception.EntityNotFoundException;
 import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.db.dataplatform.techtest.server.exception.InvalidPageTokenException;
+import com.db.dataplatform.techtest.server.exception.TechTestExceptionAdvice;
 import com.db.dataplatform.techtest.server.component.Server;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.util.UriTemplate;
 
+import javax.validation.Validation;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standaloneSetup;
 
@@ -37,30 +66,53 @@ import static org.springframework.test.web.servlet.setup.MockMvcBuilders.standal
 public class ServerControllerComponentTest {
 
 	public static final String URI_PUSHDATA = "http://localhost:8090/dataserver/pushdata";
+	public static final String URI_PUSHDATA_BATCH = "http://localhost:8090/dataserver/pushdata/batch";
+	public static final String URI_PUSHDATA_STREAM = "http://localhost:8090/dataserver/pushdata/stream";
+	public static final UriTemplate URI_PUSHDATA_BODY = new UriTemplate("http://localhost:8090/dataserver/pushdata/{name}/{blockType}");
+	public static final UriTemplate URI_GETBODY = new UriTemplate("http://localhost:8090/dataserver/body/{name}");
 	public static final UriTemplate URI_GETDATA = new UriTemplate("http://localhost:8090/dataserver/data/{blockType}");
 	public static final UriTemplate URI_PATCHDATA = new UriTemplate("http://localhost:8090/dataserver/update/{name}/{newBlockType}");
+	public static final UriTemplate URI_PATCHDATA_BULK = new UriTemplate("http://localhost:8090/dataserver/update/{newBlockType}");
 
 	@Mock
 	private Server serverMock;
 
 	private DataEnvelope testDataEnvelope;
 	private ObjectMapper objectMapper;
+	private WireFormats wireFormats;
 	private MockMvc mockMvc;
 	private ServerController serverController;
+	private IngestExecutor ingestExecutor;
 
 	@Before
 	public void setUp() throws HadoopClientException, NoSuchAlgorithmException, IOException {
-		serverController = new ServerController(serverMock);
-		mockMvc = standaloneSetup(serverController).build();
 		objectMapper = Jackson2ObjectMapperBuilder
 				.json()
 				.build();
+		NdjsonIngestor ndjsonIngestor = new NdjsonIngestor(serverMock, objectMapper,
+				Validation.buildDefaultValidatorFactory().getValidator());
+		ndjsonIngestor.chunkSize = 100;
+		ingestExecutor = new IngestExecutor(new SimpleMeterRegistry());
+		ingestExecutor.enabled = true;
+		ingestExecutor.threads = 1;
+		ingestExecutor.queueCapacity = 0;
+		ingestExecutor.retryAfterSeconds = 2;
+		ingestExecutor.start();
+		wireFormats = new WireFormats(Jackson2ObjectMapperBuilder::new);
+		serverController = new ServerController(serverMock, ndjsonIngestor, wireFormats, ingestExecutor);
+		mockMvc = standaloneSetup(serverController)
+				.setControllerAdvice(new TechTestExceptionAdvice())
+				.build();
 
 		testDataEnvelope = TestDataHelper.createTestDataEnvelopeApiObject();
 
-		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(true);
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(PushDataStatusEnum.CREATED);
+
+	}
 
-		when(serverMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA)).thenReturn(Collections.singletonList(testDataEnvelope));
+	@After
+	public void tearDown() throws InterruptedException {
+		ingestExecutor.stop();
 	}
 
 	@Test
@@ -68,9 +120,7 @@ public class ServerControllerComponentTest {
 
 		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
 
-		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
-				.content(testDataEnvelopeJson)
-				.contentType(MediaType.APPLICATION_JSON_VALUE))
+		MvcResult mvcResult = mockMvc.perform(asyncDispatch(pushData(testDataEnvelopeJson)))
 				.andExpect(status().isCreated())
 				.andReturn();
 
@@ -78,14 +128,30 @@ public class ServerControllerComponentTest {
 		assertThat(checksumPass).isTrue();
 	}
 
+	@Test
+	public void testPushDataPostCallAcceptsSmile() throws Exception {
+
+		byte[] testDataEnvelopeSmile = wireFormats.objectMapper(WireFormatEnum.SMILE).writeValueAsBytes(testDataEnvelope);
+
+		MvcResult asyncResult = mockMvc.perform(post(URI_PUSHDATA)
+						.content(testDataEnvelopeSmile)
+						.contentType(WireFormatEnum.APPLICATION_SMILE_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(asyncResult))
+				.andExpect(status().isCreated());
+
+		ArgumentCaptor<DataEnvelope> saved = ArgumentCaptor.forClass(DataEnvelope.class);
+		verify(serverMock).saveDataEnvelope(saved.capture());
+		assertThat(saved.getValue().getDataBody().getDataBody()).isEqualTo(testDataEnvelope.getDataBody().getDataBody());
+	}
+
 	@Test
 	public void testPushWrongChecksumDataPostCallWorksAsExpected() throws Exception {
-		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(false);
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(PushDataStatusEnum.CHECKSUM_MISMATCH);
 		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
 
-		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
-						.content(testDataEnvelopeJson)
-						.contentType(MediaType.APPLICATION_JSON_VALUE))
+		MvcResult mvcResult = mockMvc.perform(asyncDispatch(pushData(testDataEnvelopeJson)))
 				.andExpect(status().isOk())
 				.andReturn();
 
@@ -99,9 +165,7 @@ public class ServerControllerComponentTest {
 
 		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
 
-		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA)
-						.content(testDataEnvelopeJson)
-						.contentType(MediaType.APPLICATION_JSON_VALUE))
+		MvcResult mvcResult = mockMvc.perform(asyncDispatch(pushData(testDataEnvelopeJson)))
 				.andExpect(status().isCreated())
 				.andReturn();
 
@@ -109,6 +173,83 @@ public class ServerControllerComponentTest {
 		assertThat(checksumPass).isTrue();
 	}
 
+	@Test
+	public void testPushDuplicateDataPostCallIsOkWithoutCreating() throws Exception {
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenReturn(PushDataStatusEnum.DUPLICATE);
+		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
+
+		MvcResult mvcResult = mockMvc.perform(asyncDispatch(pushData(testDataEnvelopeJson)))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(Boolean.parseBoolean(mvcResult.getResponse().getContentAsString())).isTrue();
+	}
+
+	@Test
+	public void testPushDataStoredConcurrentlyShouldHaveConflict() throws Exception {
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class)))
+				.thenThrow(new DataIntegrityViolationException("UK_DATA_HEADER"));
+		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
+
+		mockMvc.perform(asyncDispatch(pushData(testDataEnvelopeJson)))
+				.andExpect(status().isConflict());
+	}
+
+	@Test
+	public void testPushDataWhenServerBusyShouldHaveServiceUnavailable() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		when(serverMock.saveDataEnvelope(any(DataEnvelope.class))).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return PushDataStatusEnum.CREATED;
+		});
+		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
+		MvcResult inProgress = pushData(testDataEnvelopeJson);
+
+		mockMvc.perform(asyncDispatch(pushData(testDataEnvelopeJson)))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+		release.countDown();
+		mockMvc.perform(asyncDispatch(inProgress))
+				.andExpect(status().isCreated());
+	}
+
+	@Test
+	public void testPushDataBatchPostCallReturnsResultPerEnvelope() throws Exception {
+		when(serverMock.saveDataEnvelopes(anyList())).thenReturn(Arrays.asList(
+				new PushDataResult(testDataEnvelope.getDataHeader().getName(), PushDataStatusEnum.CREATED),
+				new PushDataResult(testDataEnvelope.getDataHeader().getName(), PushDataStatusEnum.CHECKSUM_MISMATCH)));
+		String testDataEnvelopesJson = objectMapper.writeValueAsString(Arrays.asList(testDataEnvelope, testDataEnvelope));
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA_BATCH)
+						.content(testDataEnvelopesJson)
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		PushDataResult[] results = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), PushDataResult[].class);
+		assertThat(results).extracting(PushDataResult::getStatus)
+				.containsExactly(PushDataStatusEnum.CREATED, PushDataStatusEnum.CHECKSUM_MISMATCH);
+	}
+
+	@Test
+	public void testPushDataStreamPostCallStreamsResultPerRecord() throws Exception {
+		when(serverMock.saveDataEnvelopes(anyList())).thenReturn(Arrays.asList(
+				new PushDataResult(testDataEnvelope.getDataHeader().getName(), PushDataStatusEnum.CREATED),
+				new PushDataResult(testDataEnvelope.getDataHeader().getName(), PushDataStatusEnum.CREATED)));
+		String testDataEnvelopeJson = objectMapper.writeValueAsString(testDataEnvelope);
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA_STREAM)
+						.content(testDataEnvelopeJson + "\n" + testDataEnvelopeJson + "\n")
+						.contentType(NdjsonIngestor.APPLICATION_NDJSON_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		String[] results = mvcResult.getResponse().getContentAsString().split("\n");
+		assertThat(results).hasSize(2);
+		assertThat(objectMapper.readValue(results[1], PushDataResult.class).getStatus()).isEqualTo(PushDataStatusEnum.CREATED);
+	}
+
 	@Test
 	public void testGetDataCallThrowsBadRequest() throws Exception {
 
@@ -120,16 +261,134 @@ public class ServerControllerComponentTest {
 	}
 
 	@Test
-	public void testGetDataCallWorksAsExpected() throws Exception {
+	public void testPushDataBodyPostCallStreamsBodyToServer() throws Exception {
+		byte[] body = TestDataHelper.DUMMY_DATA.getBytes(StandardCharsets.UTF_8);
+		when(serverMock.saveDataStream(any(), any(InputStream.class), any(), any())).thenReturn(PushDataStatusEnum.CREATED);
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA_BODY.expand("LARGE-BODY", BlockTypeEnum.BLOCKTYPEA))
+						.param("checksum", "abc")
+						.param("checksumAlgorithm", "CRC32C")
+						.content(body)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
+				.andExpect(status().isCreated())
+				.andReturn();
+
+		assertThat(Boolean.parseBoolean(mvcResult.getResponse().getContentAsString())).isTrue();
+		verify(serverMock).saveDataStream(any(), any(InputStream.class), eq(ChecksumAlgorithmEnum.CRC32C), eq("abc"));
+	}
+
+	@Test
+	public void testPushDataBodyWithWrongChecksumReturnsFalse() throws Exception {
+		doThrow(new ChecksumMismatchException("mismatch"))
+				.when(serverMock).saveDataStream(any(), any(InputStream.class), any(), eq("abc"));
+
+		MvcResult mvcResult = mockMvc.perform(post(URI_PUSHDATA_BODY.expand("LARGE-BODY", BlockTypeEnum.BLOCKTYPEA))
+						.param("checksum", "abc")
+						.content(TestDataHelper.DUMMY_DATA)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(Boolean.parseBoolean(mvcResult.getResponse().getContentAsString())).isFalse();
+	}
+
+	@Test
+	public void testGetDataBodyCallStreamsStoredBody() throws Exception {
+		byte[] body = TestDataHelper.DUMMY_DATA.getBytes(StandardCharsets.UTF_8);
+		when(serverMock.openDataBody("LARGE-BODY")).thenReturn(new StoredDataBody() {
+			@Override
+			public long getLength() {
+				return body.length;
+			}
+
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				out.write(body);
+			}
+		});
+
+		MvcResult asyncResult = mockMvc.perform(get(URI_GETBODY.expand("LARGE-BODY")))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+				.andExpect(status().isOk())
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, body.length))
+				.andReturn();
+
+		assertThat(mvcResult.getResponse().getContentAsByteArray()).isEqualTo(body);
+	}
 
-		MvcResult mvcResult = mockMvc.perform(get(String.valueOf(URI_GETDATA),"BLOCKTYPEA")
+	@Test
+	public void testGetDataCallWorksAsExpected() throws Exception {
+		when(serverMock.streamDataByBlockType(eq(BlockTypeEnum.BLOCKTYPEA), any())).thenAnswer(invocation -> {
+			Consumer<DataEnvelope> consumer = invocation.getArgument(1);
+			consumer.accept(testDataEnvelope);
+			consumer.accept(testDataEnvelope);
+			return 2L;
+		});
+
+		MvcResult asyncResult = mockMvc.perform(get(String.valueOf(URI_GETDATA),"BLOCKTYPEA")
 						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
 				.andExpect(status().isOk())
 				.andReturn();
 
 		List<DataEnvelope> dataEnvelopes= Arrays.asList(objectMapper.readValue(mvcResult.getResponse().getContentAsString(), DataEnvelope[].class));
-		assertThat(dataEnvelopes.size()).isEqualTo(1);
+		assertThat(dataEnvelopes.size()).isEqualTo(2);
+		assertThat(dataEnvelopes.get(1).getDataHeader().getName()).isEqualTo(testDataEnvelope.getDataHeader().getName());
+
+	}
+
+	@Test
+	public void testGetDataCallWritesNegotiatedWireFormat() throws Exception {
+		when(serverMock.streamDataByBlockType(eq(BlockTypeEnum.BLOCKTYPEA), any())).thenAnswer(invocation -> {
+			Consumer<DataEnvelope> consumer = invocation.getArgument(1);
+			consumer.accept(testDataEnvelope);
+			return 1L;
+		});
+
+		MvcResult asyncResult = mockMvc.perform(get(String.valueOf(URI_GETDATA),"BLOCKTYPEA")
+						.accept(MediaType.APPLICATION_CBOR))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+				.andReturn();
+
+		DataEnvelope[] dataEnvelopes = wireFormats.objectMapper(WireFormatEnum.CBOR)
+				.readValue(mvcResult.getResponse().getContentAsByteArray(), DataEnvelope[].class);
+		assertThat(dataEnvelopes).hasSize(1);
+		assertThat(dataEnvelopes[0].getDataHeader().getName()).isEqualTo(testDataEnvelope.getDataHeader().getName());
+	}
+
+	@Test
+	public void testGetDataPageCallReturnsNextPageToken() throws Exception {
+		when(serverMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 1, "token-1"))
+				.thenReturn(new DataEnvelopePage(Collections.singletonList(testDataEnvelope), "token-2"));
 
+		MvcResult mvcResult = mockMvc.perform(get(String.valueOf(URI_GETDATA), "BLOCKTYPEA")
+						.param("limit", "1")
+						.param("after", "token-1"))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		DataEnvelopePage page = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), DataEnvelopePage.class);
+		assertThat(page.getDataEnvelopes()).hasSize(1);
+		assertThat(page.getNextPageToken()).isEqualTo("token-2");
+	}
+
+	@Test
+	public void testGetDataPageWithInvalidTokenShouldHaveClientError() throws Exception {
+		when(serverMock.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 1, "bad"))
+				.thenThrow(new InvalidPageTokenException("bad"));
+
+		mockMvc.perform(get(String.valueOf(URI_GETDATA), "BLOCKTYPEA")
+						.param("limit", "1")
+						.param("after", "bad"))
+				.andExpect(status().isBadRequest());
 	}
 
 	@Test
@@ -158,4 +417,26 @@ public class ServerControllerComponentTest {
 				.andExpect(status().is4xxClientError())
 				.andReturn();
 	}
+
+	@Test
+	public void testBulkUpdatePatchCallReturnsUpdatedCount() throws Exception {
+		List<String> names = Arrays.asList("ABC-BDC-EDF", "XYZ");
+		when(serverMock.updateDataByNames(eq(names), eq(BlockTypeEnum.BLOCKTYPEB))).thenReturn(1);
+
+		MvcResult mvcResult = mockMvc.perform(patch(URI_PATCHDATA_BULK.expand(BlockTypeEnum.BLOCKTYPEB))
+						.content(objectMapper.writeValueAsString(names))
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(status().isOk())
+				.andReturn();
+
+		assertThat(Integer.parseInt(mvcResult.getResponse().getContentAsString())).isEqualTo(1);
+	}
+
+	private MvcResult pushData(String dataEnvelopeJson) throws Exception {
+		return mockMvc.perform(post(URI_PUSHDATA)
+						.content(dataEnvelopeJson)
+						.contentType(MediaType.APPLICATION_JSON_VALUE))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
 }
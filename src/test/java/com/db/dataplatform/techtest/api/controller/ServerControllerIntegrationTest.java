@@ -0,0 +1,144 @@
+package com.db.dataplatform.techtest.api.controller;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
+import com.db.dataplatform.techtest.server.persistence.model.HadoopOutboxEntity;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Round trips through the running server and the embedded database, for what the mocked component tests
+ * cannot show.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TechTestApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"techtest.demo-flow.enabled=false", "outbox.dispatcher.enabled=false", "ingest.async.enabled=false"})
+public class ServerControllerIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private HadoopOutboxService hadoopOutboxService;
+
+    private final ChecksumCalculator checksumCalculator = new ChecksumCalculator();
+
+    @Test
+    public void shouldReadBackPushedDataBodyTooLargeForItsRow() {
+        String body = randomBody(4 * DataBodyContentEntity.MAX_STORED_BODY_BYTES);
+        DataEnvelope envelope = new DataEnvelope(new DataHeader("LARGE-JSON", BlockTypeEnum.BLOCKTYPEB),
+                new DataBody(body), checksumCalculator.checksum(body, ChecksumAlgorithmEnum.DEFAULT));
+
+        ResponseEntity<Boolean> pushed = restTemplate.postForEntity("/dataserver/pushdata", envelope, Boolean.class);
+        DataEnvelope[] streamed = restTemplate.getForObject("/dataserver/data/BLOCKTYPEB", DataEnvelope[].class);
+        DataEnvelopePage page = restTemplate.getForObject("/dataserver/data/BLOCKTYPEB?limit=10", DataEnvelopePage.class);
+
+        assertThat(pushed.getBody()).isTrue();
+        assertThat(chunksOf("LARGE-JSON")).isGreaterThan(0);
+        assertThat(bodyOf(streamed, "LARGE-JSON")).isEqualTo(body);
+        assertThat(bodyOf(page.getDataEnvelopes().toArray(new DataEnvelope[0]), "LARGE-JSON")).isEqualTo(body);
+    }
+
+    @Test
+    public void shouldQueueHadoopPushOfStreamedDataBody() {
+        String body = randomBody(100);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        String checksum = checksumCalculator.checksum(body, ChecksumAlgorithmEnum.DEFAULT);
+
+        ResponseEntity<Boolean> pushed = restTemplate.postForEntity("/dataserver/pushdata/STREAMED/BLOCKTYPEA?checksum="
+                + checksum, new HttpEntity<>(body.getBytes(StandardCharsets.UTF_8), headers), Boolean.class);
+
+        assertThat(pushed.getBody()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from HADOOP_OUTBOX where DATA_HEADER_NAME = 'STREAMED'",
+                Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldQueueHadoopPushOfChunkedStreamedDataBodyByReference() {
+        String body = randomBody(4 * DataBodyContentEntity.MAX_STORED_BODY_BYTES);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        String checksum = checksumCalculator.checksum(body, ChecksumAlgorithmEnum.DEFAULT);
+
+        ResponseEntity<Boolean> pushed = restTemplate.postForEntity("/dataserver/pushdata/LARGE-STREAMED/BLOCKTYPEA?checksum="
+                + checksum, new HttpEntity<>(body.getBytes(StandardCharsets.UTF_8), headers), Boolean.class);
+        DataEnvelope[] streamed = restTemplate.getForObject("/dataserver/data/BLOCKTYPEA", DataEnvelope[].class);
+
+        assertThat(pushed.getBody()).isTrue();
+        assertThat(chunksOf("LARGE-STREAMED")).isGreaterThan(0);
+        assertThat(jdbcTemplate.queryForObject("select BODY_STORED from HADOOP_OUTBOX where DATA_HEADER_NAME = ?",
+                Boolean.class, "LARGE-STREAMED")).isTrue();
+        assertThat(jdbcTemplate.queryForObject("select PAYLOAD from HADOOP_OUTBOX where DATA_HEADER_NAME = ?",
+                String.class, "LARGE-STREAMED")).doesNotContain(body.substring(0, 100));
+        assertThat(bodyOf(streamed, "LARGE-STREAMED")).isEqualTo(body);
+    }
+
+    @Test
+    public void shouldDeleteDeliveredOutboxEntryOnlyOnce() {
+        String body = randomBody(100);
+        DataEnvelope envelope = new DataEnvelope(new DataHeader("DELIVERED", BlockTypeEnum.BLOCKTYPEA),
+                new DataBody(body), checksumCalculator.checksum(body, ChecksumAlgorithmEnum.DEFAULT));
+        restTemplate.postForEntity("/dataserver/pushdata", envelope, Boolean.class);
+
+        HadoopOutboxEntity entry = hadoopOutboxService.claimBatch(100, 1, Duration.ZERO).stream()
+                .filter(claimed -> "DELIVERED".equals(claimed.getDataHeaderName()))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        hadoopOutboxService.markDelivered(entry);
+        hadoopOutboxService.markDelivered(entry);
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from HADOOP_OUTBOX where DATA_HEADER_NAME = 'DELIVERED'",
+                Integer.class)).isEqualTo(0);
+    }
+
+    private int chunksOf(String name) {
+        return jdbcTemplate.queryForObject("select c.DATA_BODY_CHUNKS from DATA_BODY_CONTENT c"
+                + " inner join DATA_STORE ds on ds.DATA_BODY_CONTENT_ID = c.DATA_BODY_CONTENT_ID"
+                + " inner join DATA_HEADER dh on dh.DATA_HEADER_ID = ds.DATA_HEADER_ID"
+                + " where dh.NAME = ?", Integer.class, name);
+    }
+
+    private static String bodyOf(DataEnvelope[] envelopes, String name) {
+        return Arrays.stream(envelopes)
+                .filter(envelope -> envelope.getDataHeader().getName().equals(name))
+                .map(envelope -> envelope.getDataBody().getDataBody())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String randomBody(int size) {
+        Random random = new Random(size);
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append((char) ('!' + random.nextInt(90)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.db.dataplatform.techtest.checksum;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChecksumCalculatorTests {
+
+    private ChecksumCalculator checksumCalculator;
+
+    @Before
+    public void setup() {
+        checksumCalculator = new ChecksumCalculator();
+    }
+
+    @Test
+    public void shouldDefaultToMd5() {
+        assertThat(checksumCalculator.checksum(DUMMY_DATA, null)).isEqualTo(TechTestApplication.MD5_CHECKSUM);
+    }
+
+    @Test
+    public void shouldMatchKnownVectors() {
+        assertThat(checksumCalculator.checksum("abc", ChecksumAlgorithmEnum.SHA256))
+                .isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+        assertThat(checksumCalculator.checksum("123456789", ChecksumAlgorithmEnum.CRC32C)).isEqualTo("e3069283");
+        assertThat(checksumCalculator.checksum("", ChecksumAlgorithmEnum.XXHASH32)).isEqualTo("02cc5d05");
+    }
+
+    @Test
+    public void shouldHashUtf8EncodingOfBody() {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 50_000) {
+            body.append("Größe-€-").append(body.length());
+        }
+        String data = body.toString();
+
+        assertThat(checksumCalculator.checksum(data, ChecksumAlgorithmEnum.MD5))
+                .isEqualTo(DigestUtils.md5Hex(data.getBytes(StandardCharsets.UTF_8)));
+        assertThat(checksumCalculator.checksum(data, ChecksumAlgorithmEnum.SHA256))
+                .isEqualTo(DigestUtils.sha256Hex(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void shouldGiveSameResultOnRepeatedCalls() {
+        String first = checksumCalculator.checksum(DUMMY_DATA, ChecksumAlgorithmEnum.CRC32C);
+        checksumCalculator.checksum("something else", ChecksumAlgorithmEnum.CRC32C);
+
+        assertThat(checksumCalculator.checksum(DUMMY_DATA, ChecksumAlgorithmEnum.CRC32C)).isEqualTo(first);
+    }
+
+    @Test
+    public void shouldMatchChecksumIgnoringCase() {
+        assertThat(checksumCalculator.matches(DUMMY_DATA, ChecksumAlgorithmEnum.MD5,
+                TechTestApplication.MD5_CHECKSUM.toUpperCase())).isTrue();
+        assertThat(checksumCalculator.matches(DUMMY_DATA, ChecksumAlgorithmEnum.MD5, null)).isFalse();
+    }
+}
@@ -0,0 +1,62 @@
+package com.db.dataplatform.techtest.checksum;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.checksum.ChecksumInputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ChecksumInputStreamTests {
+
+    @Test
+    public void shouldDefaultToMd5() throws IOException {
+        ChecksumInputStream in = checksummed(DUMMY_DATA, null);
+
+        drain(in, 7);
+
+        assertThat(in.getChecksum()).isEqualTo(TechTestApplication.MD5_CHECKSUM);
+        assertThat(in.getLength()).isEqualTo(DUMMY_DATA.length());
+    }
+
+    @Test
+    public void shouldMatchChecksumOfWholeBodyWhateverTheReads() throws IOException {
+        String body = "Größe-€-" + DUMMY_DATA;
+        for (ChecksumAlgorithmEnum algorithm : ChecksumAlgorithmEnum.values()) {
+            ChecksumInputStream in = checksummed(body, algorithm);
+
+            assertThat(in.read()).isEqualTo(body.getBytes(StandardCharsets.UTF_8)[0] & 0xff);
+            assertThat(in.skip(5)).isEqualTo(5);
+            drain(in, 3);
+
+            assertThat(in.matches(new ChecksumCalculator().checksum(body, algorithm).toUpperCase())).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldRejectReadsAfterChecksum() throws IOException {
+        ChecksumInputStream in = checksummed(DUMMY_DATA, ChecksumAlgorithmEnum.CRC32C);
+        in.read();
+        in.getChecksum();
+
+        assertThatThrownBy(in::read).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ChecksumInputStream checksummed(String body, ChecksumAlgorithmEnum algorithm) {
+        return new ChecksumInputStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), algorithm);
+    }
+
+    private static void drain(ChecksumInputStream in, int bufferSize) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        while (in.read(buffer) != -1) {
+            // hashed as read
+        }
+    }
+}
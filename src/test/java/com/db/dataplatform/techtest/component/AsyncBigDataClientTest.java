@@ -0,0 +1,204 @@
+package com.db.dataplatform.techtest.component;
+
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.AsyncBigDataClient;
+import com.db.dataplatform.techtest.server.component.BigDataClient;
+import com.db.dataplatform.techtest.server.component.HadoopClientMetrics;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AsyncBigDataClientTest {
+
+    private HttpServer hadoopServer;
+    private AsyncBigDataClient asyncBigDataClient;
+    private SimpleMeterRegistry meterRegistry;
+    private DataEnvelope testDataEnvelope;
+
+    private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+    private final ConcurrentLinkedQueue<String> received = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> receivedContentTypes = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile boolean holdResponses;
+
+    @Before
+    public void setup() throws IOException {
+        testDataEnvelope = createTestDataEnvelopeApiObject();
+
+        hadoopServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        hadoopServer.setExecutor(Executors.newCachedThreadPool());
+        hadoopServer.createContext("/hadoopserver/pushbigdata", exchange -> {
+            received.add(read(exchange.getRequestBody()));
+            receivedContentTypes.add(exchange.getRequestHeaders().getFirst("Content-Type"));
+            if (holdResponses) {
+                await(release);
+            }
+            int status = failuresBeforeSuccess.getAndDecrement() > 0 ? 504 : 200;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        hadoopServer.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        HadoopClientMetrics hadoopClientMetrics = new HadoopClientMetrics(meterRegistry);
+        BigDataClient bigDataClient = new BigDataClient(new RestTemplate(), new SimpleClientHttpRequestFactory(),
+                new WireFormats(Jackson2ObjectMapperBuilder::new), hadoopClientMetrics);
+        bigDataClient.failureThreshold = 2;
+        bigDataClient.openTimeoutMs = 60000;
+        bigDataClient.resetTimeoutMs = 60000;
+        bigDataClient.start();
+        asyncBigDataClient = new AsyncBigDataClient(new WireFormats(Jackson2ObjectMapperBuilder::new),
+                hadoopClientMetrics, bigDataClient);
+        asyncBigDataClient.bigDataServer = "http://localhost:" + hadoopServer.getAddress().getPort() + "/hadoopserver";
+        asyncBigDataClient.maxAttempts = 3;
+        asyncBigDataClient.initialBackoffMs = 10;
+        asyncBigDataClient.backoffMultiplier = 2;
+        asyncBigDataClient.maxInFlight = 2;
+        asyncBigDataClient.ioThreads = 1;
+        asyncBigDataClient.connectTimeoutMs = 1000;
+        asyncBigDataClient.readTimeoutMs = 5000;
+        asyncBigDataClient.wireFormat = WireFormatEnum.JSON;
+        asyncBigDataClient.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        asyncBigDataClient.stop();
+        hadoopServer.stop(0);
+    }
+
+    @Test
+    public void shouldPushDataToHadoopAsExpected() throws Exception {
+        asyncBigDataClient.pushBigData(testDataEnvelope).get(5, TimeUnit.SECONDS);
+
+        assertThat(received).hasSize(1);
+        assertThat(received.peek()).contains(testDataEnvelope.getDataHeader().getName());
+        assertThat(asyncBigDataClient.getInFlight()).isZero();
+    }
+
+    @Test
+    public void shouldPushDataInConfiguredWireFormat() throws Exception {
+        asyncBigDataClient.wireFormat = WireFormatEnum.SMILE;
+
+        asyncBigDataClient.pushBigData(testDataEnvelope).get(5, TimeUnit.SECONDS);
+
+        assertThat(receivedContentTypes).containsExactly(WireFormatEnum.APPLICATION_SMILE_VALUE);
+        assertThat(received.peek()).startsWith(":)");
+    }
+
+    @Test
+    public void shouldPushBatchToHadoopInOneRequest() throws Exception {
+        List<DataEnvelope> batch = Arrays.asList(testDataEnvelope, testDataEnvelope);
+
+        asyncBigDataClient.pushBigDataBatch(batch).get(5, TimeUnit.SECONDS);
+
+        assertThat(received).hasSize(1);
+        assertThat(received.peek()).startsWith("[");
+    }
+
+    @Test
+    public void shouldRetryWithoutBlockingUntilPushSucceeds() throws Exception {
+        failuresBeforeSuccess.set(2);
+
+        asyncBigDataClient.pushBigData(testDataEnvelope).get(5, TimeUnit.SECONDS);
+
+        assertThat(received).hasSize(3);
+        assertThat(meterRegistry.get(HadoopClientMetrics.PUSH_RETRIES).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(HadoopClientMetrics.PUSH_ATTEMPTS).tag("outcome", "failure").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFailPushAfterMaxAttempts() {
+        failuresBeforeSuccess.set(10);
+
+        CompletableFuture<Void> push = asyncBigDataClient.pushBigData(testDataEnvelope);
+
+        assertThatThrownBy(() -> push.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HadoopClientException.class);
+        assertThat(received).hasSize(3);
+        assertThat(asyncBigDataClient.getInFlight()).isZero();
+        assertThat(meterRegistry.get(HadoopClientMetrics.PUSH_RECOVERIES).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRejectPushesOnceCircuitIsOpen() {
+        failuresBeforeSuccess.set(100);
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<Void> push = asyncBigDataClient.pushBigData(testDataEnvelope);
+            assertThatThrownBy(() -> push.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(HadoopClientException.class);
+        }
+        received.clear();
+
+        CompletableFuture<Void> rejected = asyncBigDataClient.pushBigData(testDataEnvelope);
+
+        assertThatThrownBy(rejected::get).hasCauseInstanceOf(HadoopClientException.class)
+                .hasMessageContaining("circuit is open");
+        assertThat(received).isEmpty();
+        assertThat(meterRegistry.get(HadoopClientMetrics.CIRCUIT_REJECTIONS).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(HadoopClientMetrics.CIRCUIT_OPEN).gauge().value()).isEqualTo(1);
+        assertThat(asyncBigDataClient.getInFlight()).isZero();
+    }
+
+    @Test
+    public void shouldRejectPushBeyondMaxInFlight() throws Exception {
+        holdResponses = true;
+        CompletableFuture<Void> first = asyncBigDataClient.pushBigData(testDataEnvelope);
+        CompletableFuture<Void> second = asyncBigDataClient.pushBigData(testDataEnvelope);
+
+        CompletableFuture<Void> rejected = asyncBigDataClient.pushBigData(testDataEnvelope);
+
+        assertThat(asyncBigDataClient.getInFlight()).isEqualTo(2);
+        assertThatThrownBy(rejected::get).hasCauseInstanceOf(HadoopClientException.class);
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(asyncBigDataClient.getInFlight()).isZero();
+    }
+
+    private static String read(InputStream body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read = body.read(buffer); read != -1; read = body.read(buffer)) {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
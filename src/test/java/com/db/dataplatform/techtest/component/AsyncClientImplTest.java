@@ -0,0 +1,251 @@
+package com.db.dataplatform.techtest.component;
+
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
+import com.db.dataplatform.techtest.client.api.model.DataBody;
+import com.db.dataplatform.techtest.client.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.client.api.model.DataHeader;
+import com.db.dataplatform.techtest.client.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.client.component.impl.AsyncClientImpl;
+import com.db.dataplatform.techtest.client.component.impl.ClientMetrics;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.client.HttpResponseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AsyncClientImplTest {
+
+    private static final String MISMATCH = "MISMATCH";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<String> requests = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private volatile int pushStatus = 201;
+    private volatile boolean batchSupported = true;
+    private volatile boolean holdResponses;
+    private final AtomicInteger connectionsToDrop = new AtomicInteger();
+
+    private HttpServer dataServer;
+    private AsyncClientImpl asyncClient;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setup() throws IOException {
+        dataServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        dataServer.setExecutor(Executors.newCachedThreadPool());
+        dataServer.createContext("/dataserver/pushdata", exchange -> {
+            JsonNode envelope = objectMapper.readTree(exchange.getRequestBody());
+            requests.add(envelope.at("/dataHeader/name").asText());
+            if (connectionsToDrop.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                // closing the exchange before responding closes the connection, as a server dropping an idle one
+                exchange.close();
+                return;
+            }
+            if (holdResponses) {
+                await(release);
+            }
+            respond(exchange, pushStatus, String.valueOf(!MISMATCH.equals(envelope.at("/dataHeader/name").asText())));
+        });
+        dataServer.createContext("/dataserver/pushdata/batch", exchange -> {
+            JsonNode envelopes = objectMapper.readTree(exchange.getRequestBody());
+            if (!batchSupported) {
+                respond(exchange, 404, "");
+                return;
+            }
+            List<String> names = new ArrayList<>();
+            List<Object> results = new ArrayList<>();
+            for (JsonNode envelope : envelopes) {
+                String name = envelope.at("/dataHeader/name").asText();
+                names.add(name);
+                PushDataStatusEnum status = MISMATCH.equals(name)
+                        ? PushDataStatusEnum.CHECKSUM_MISMATCH : PushDataStatusEnum.CREATED;
+                results.add(objectMapper.createObjectNode().put("name", name).put("status", status.name()));
+            }
+            requests.add(names.toString());
+            respond(exchange, 200, objectMapper.writeValueAsString(results));
+        });
+        dataServer.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        asyncClient = new AsyncClientImpl(new WireFormats(Jackson2ObjectMapperBuilder::new),
+                new ClientMetrics(meterRegistry));
+        asyncClient.dataServer = "http://localhost:" + dataServer.getAddress().getPort() + "/dataserver";
+        asyncClient.wireFormat = WireFormatEnum.JSON;
+        asyncClient.maxInFlight = 3;
+        asyncClient.maxConnections = 2;
+        asyncClient.ioThreads = 1;
+        asyncClient.batchSize = 1;
+        asyncClient.batchMaxDelayMs = 50;
+        asyncClient.connectTimeoutMs = 1000;
+        asyncClient.readTimeoutMs = 5000;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        release.countDown();
+        asyncClient.stop();
+        dataServer.stop(0);
+    }
+
+    @Test
+    public void shouldPushDataOneByOneWhenBatchingIsOff() throws Exception {
+        asyncClient.start();
+
+        assertThat(asyncClient.pushData(envelope("A")).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(asyncClient.pushData(envelope(MISMATCH)).get(5, TimeUnit.SECONDS)).isFalse();
+
+        assertThat(requests).containsExactly("A", MISMATCH);
+        assertThat(asyncClient.getInFlight()).isZero();
+        assertThat(meterRegistry.get(ClientMetrics.PUSH).timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldSendConcurrentPushesAsOneBatch() throws Exception {
+        asyncClient.batchSize = 3;
+        asyncClient.start();
+
+        CompletableFuture<Boolean> first = asyncClient.pushData(envelope("A"));
+        CompletableFuture<Boolean> second = asyncClient.pushData(envelope(MISMATCH));
+        CompletableFuture<Boolean> third = asyncClient.pushData(envelope("C"));
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(third.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(requests).containsExactly("[A, MISMATCH, C]");
+        assertThat(meterRegistry.get(ClientMetrics.PUSH_BATCH_SIZE).summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldSendPartialBatchAfterMaxDelay() throws Exception {
+        asyncClient.batchSize = 10;
+        asyncClient.start();
+
+        CompletableFuture<Boolean> first = asyncClient.pushData(envelope("A"));
+        CompletableFuture<Boolean> second = asyncClient.pushData(envelope("B"));
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        assertThat(requests).containsExactly("[A, B]");
+    }
+
+    @Test
+    public void shouldFallBackToSinglePushesWhenServerHasNoBatchEndpoint() throws Exception {
+        batchSupported = false;
+        asyncClient.batchSize = 2;
+        asyncClient.start();
+
+        CompletableFuture<Boolean> first = asyncClient.pushData(envelope("A"));
+        CompletableFuture<Boolean> second = asyncClient.pushData(envelope("B"));
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        asyncClient.pushData(envelope("C")).get(5, TimeUnit.SECONDS);
+
+        assertThat(requests).containsOnly("A", "B", "C");
+        assertThat(first.get()).isTrue();
+        assertThat(second.get()).isTrue();
+    }
+
+    @Test
+    public void shouldSendPushOnceMoreWhenServerClosedConnection() throws Exception {
+        connectionsToDrop.set(1);
+        asyncClient.start();
+
+        assertThat(asyncClient.pushData(envelope("A")).get(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(requests).containsExactly("A", "A");
+    }
+
+    @Test
+    public void shouldFailPushWhenServerClosedConnectionTwice() throws Exception {
+        connectionsToDrop.set(2);
+        asyncClient.start();
+
+        CompletableFuture<Boolean> push = asyncClient.pushData(envelope("A"));
+
+        assertThatThrownBy(() -> push.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ConnectionClosedException.class);
+        assertThat(requests).containsExactly("A", "A");
+    }
+
+    @Test
+    public void shouldFailPushOnServerError() throws Exception {
+        pushStatus = 503;
+        asyncClient.start();
+
+        CompletableFuture<Boolean> push = asyncClient.pushData(envelope("A"));
+
+        assertThatThrownBy(() -> push.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(HttpResponseException.class);
+        assertThat(meterRegistry.get(ClientMetrics.PUSH_FAILURES).counter().count()).isEqualTo(1);
+        assertThat(asyncClient.getInFlight()).isZero();
+    }
+
+    @Test
+    public void shouldRejectPushBeyondMaxInFlight() throws Exception {
+        holdResponses = true;
+        asyncClient.start();
+        List<CompletableFuture<Boolean>> pushes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pushes.add(asyncClient.pushData(envelope("A" + i)));
+        }
+
+        CompletableFuture<Boolean> rejected = asyncClient.pushData(envelope("B"));
+
+        assertThat(asyncClient.getInFlight()).isEqualTo(3);
+        assertThat(meterRegistry.get(ClientMetrics.PUSH_IN_FLIGHT).gauge().value()).isEqualTo(3);
+        assertThatThrownBy(rejected::get).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(meterRegistry.get(ClientMetrics.PUSH_REJECTIONS).counter().count()).isEqualTo(1);
+
+        release.countDown();
+        CompletableFuture.allOf(pushes.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        assertThat(asyncClient.getInFlight()).isZero();
+    }
+
+    private static DataEnvelope envelope(String name) {
+        return new DataEnvelope(new DataHeader(name, BlockTypeEnum.BLOCKTYPEA), new DataBody(DUMMY_DATA), "checksum");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,18 +1,40 @@
 package com.db.dataplatform.techtest.component;
 
+import com.db.dataplatform.techtest.WireFormatEnum;
+import com.db.dataplatform.techtest.WireFormats;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.StreamedDataBody;
 import com.db.dataplatform.techtest.server.component.BigDataClient;
+import com.db.dataplatform.techtest.server.component.HadoopClientMetrics;
 import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -20,6 +42,8 @@ import static org.mockito.Mockito.*;
 @RunWith(MockitoJUnitRunner.class)
 public class BigDataClientTest {
 
+    private static final String STORED_BODY = "BODY READ FROM THE STORE";
+
     private DataEnvelope testDataEnvelope;
 
     private BigDataClient bigDataClient;
@@ -27,12 +51,24 @@ public class BigDataClientTest {
     @Mock
     RestTemplate restTemplate;
 
+    @Mock
+    ClientHttpRequestFactory streamingRequestFactory;
+
     @Before
     public void setup() {
         testDataEnvelope = createTestDataEnvelopeApiObject();
 
-        bigDataClient = new BigDataClient(restTemplate);
-
+        bigDataClient = new BigDataClient(restTemplate, streamingRequestFactory,
+                new WireFormats(Jackson2ObjectMapperBuilder::new), new HadoopClientMetrics(new SimpleMeterRegistry()));
+        bigDataClient.bigDataServer = "http://localhost/hadoopserver";
+        bigDataClient.maxAttempts = 3;
+        bigDataClient.initialBackoffMs = 1;
+        bigDataClient.backoffMultiplier = 1;
+        bigDataClient.failureThreshold = 2;
+        bigDataClient.openTimeoutMs = 60000;
+        bigDataClient.resetTimeoutMs = 60000;
+        bigDataClient.wireFormat = WireFormatEnum.JSON;
+        bigDataClient.start();
     }
 
     @Test
@@ -40,18 +76,86 @@ public class BigDataClientTest {
         bigDataClient.pushBigData(testDataEnvelope);
 
         verify(restTemplate, times(1))
-                .postForEntity(anyString(), eq(testDataEnvelope), eq(String.class));
+                .postForEntity(anyString(), eq(request(testDataEnvelope)), eq(String.class));
+    }
+
+    @Test
+    public void shouldPushBatchToHadoopInOneRequest() throws HadoopClientException {
+        List<DataEnvelope> batch = Arrays.asList(testDataEnvelope, testDataEnvelope);
+
+        bigDataClient.pushBigDataBatch(batch);
+
+        verify(restTemplate, times(1))
+                .postForEntity(eq("http://localhost/hadoopserver/pushbigdata"), eq(request(batch)), eq(String.class));
     }
 
     @Test
     public void shouldPushDataToHadoopOnThirdTimeAsExpected() {
-        when(restTemplate.postForEntity(anyString(), eq(testDataEnvelope), eq(String.class)))
+        when(restTemplate.postForEntity(anyString(), eq(request(testDataEnvelope)), eq(String.class)))
                 .thenThrow(HttpServerErrorException.GatewayTimeout.class);
 
         assertThatThrownBy(() -> bigDataClient.pushBigData(testDataEnvelope))
-                .isInstanceOf(HttpStatusCodeException.class);
+                .isInstanceOf(HadoopClientException.class)
+                .hasCauseInstanceOf(HttpStatusCodeException.class);
 
-        verify(restTemplate, times(1))
-                .postForEntity(anyString(), eq(testDataEnvelope), eq(String.class));
+        verify(restTemplate, times(3))
+                .postForEntity(anyString(), eq(request(testDataEnvelope)), eq(String.class));
+    }
+
+    @Test
+    public void shouldRejectPushesOnceCircuitIsOpen() {
+        when(restTemplate.postForEntity(anyString(), eq(request(testDataEnvelope)), eq(String.class)))
+                .thenThrow(HttpServerErrorException.GatewayTimeout.class);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> bigDataClient.pushBigData(testDataEnvelope))
+                    .isInstanceOf(HadoopClientException.class);
+        }
+
+        verify(restTemplate, times(6))
+                .postForEntity(anyString(), eq(request(testDataEnvelope)), eq(String.class));
+    }
+
+    @Test
+    public void shouldStreamStoredDataBodyToHadoopAsJson() throws Exception {
+        bigDataClient.wireFormat = WireFormatEnum.SMILE;
+        MockClientHttpRequest request = respondWith(HttpStatus.OK);
+
+        bigDataClient.pushStoredBigData(storedEnvelope());
+
+        assertThat(request.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(request.getBodyAsString()).contains("\"dataBody\":\"" + STORED_BODY + "\"");
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    public void shouldRetryStoredDataBodyPushOnServerError() throws Exception {
+        respondWith(HttpStatus.GATEWAY_TIMEOUT);
+
+        assertThatThrownBy(() -> bigDataClient.pushStoredBigData(storedEnvelope()))
+                .isInstanceOf(HadoopClientException.class)
+                .hasCauseInstanceOf(HttpStatusCodeException.class);
+
+        verify(streamingRequestFactory, times(3))
+                .createRequest(URI.create("http://localhost/hadoopserver/pushbigdata"), HttpMethod.POST);
+    }
+
+    private MockClientHttpRequest respondWith(HttpStatus status) throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest();
+        request.setResponse(new MockClientHttpResponse(new byte[0], status));
+        when(streamingRequestFactory.createRequest(any(URI.class), eq(HttpMethod.POST))).thenReturn(request);
+        return request;
+    }
+
+    private DataEnvelope storedEnvelope() {
+        return new DataEnvelope(testDataEnvelope.getDataHeader(),
+                new StreamedDataBody(() -> new ByteArrayInputStream(STORED_BODY.getBytes(StandardCharsets.UTF_8))),
+                null);
+    }
+
+    private static HttpEntity<Object> request(Object payload) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(payload, headers);
     }
 }
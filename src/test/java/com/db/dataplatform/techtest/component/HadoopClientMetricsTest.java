@@ -0,0 +1,95 @@
+package com.db.dataplatform.techtest.component;
+
+import com.db.dataplatform.techtest.server.component.HadoopClientMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.retry.policy.CircuitBreakerRetryPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.DefaultRetryState;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HadoopClientMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private HadoopClientMetrics hadoopClientMetrics;
+    private RetryTemplate retryTemplate;
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new SimpleRetryPolicy(3));
+        hadoopClientMetrics = new HadoopClientMetrics(meterRegistry);
+        retryTemplate.registerListener(hadoopClientMetrics);
+    }
+
+    @Test
+    public void shouldCountAttemptsAndRetriesOfSuccessfulPush() {
+        AtomicInteger calls = new AtomicInteger();
+
+        retryTemplate.execute(context -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException("timeout");
+            }
+            return null;
+        });
+
+        assertThat(attempts("success")).isEqualTo(1);
+        assertThat(attempts("failure")).isEqualTo(2);
+        assertThat(meterRegistry.get(HadoopClientMetrics.PUSH_RETRIES).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(HadoopClientMetrics.PUSH_RECOVERIES).counter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCountRecoveryOfExhaustedPush() {
+        assertThatThrownBy(() -> retryTemplate.execute(context -> {
+            throw new IllegalStateException("timeout");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(attempts("success")).isEqualTo(0);
+        assertThat(attempts("failure")).isEqualTo(3);
+        assertThat(meterRegistry.get(HadoopClientMetrics.PUSH_RETRIES).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(HadoopClientMetrics.PUSH_RECOVERIES).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRegisterCircuitBreakerMetersOnlyWithCircuitBreaker() {
+        assertThat(meterRegistry.find(HadoopClientMetrics.CIRCUIT_OPEN).gauge()).isNull();
+        assertThat(meterRegistry.find(HadoopClientMetrics.CIRCUIT_REJECTIONS).counter()).isNull();
+
+        hadoopClientMetrics.bindCircuitBreaker(new RetryTemplate());
+
+        assertThat(meterRegistry.get(HadoopClientMetrics.CIRCUIT_OPEN).gauge().value()).isZero();
+        assertThat(meterRegistry.get(HadoopClientMetrics.CIRCUIT_REJECTIONS).counter().count()).isZero();
+    }
+
+    @Test
+    public void shouldRecordCircuitBreakerTransitions() {
+        CircuitBreakerRetryPolicy circuitBreaker = new CircuitBreakerRetryPolicy(new SimpleRetryPolicy(1));
+        circuitBreaker.setOpenTimeout(60000);
+        retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(circuitBreaker);
+        hadoopClientMetrics.bindCircuitBreaker(retryTemplate);
+
+        assertThatThrownBy(() -> retryTemplate.execute(context -> {
+            throw new IllegalStateException("timeout");
+        }, null, new DefaultRetryState("hadoop"))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> retryTemplate.execute(context -> {
+            throw new IllegalStateException("timeout");
+        }, null, new DefaultRetryState("hadoop"))).isInstanceOf(RuntimeException.class);
+
+        assertThat(meterRegistry.get(HadoopClientMetrics.CIRCUIT_OPEN).gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get(HadoopClientMetrics.CIRCUIT_TRANSITIONS).tag("state", "open").counter().count())
+                .isEqualTo(1);
+    }
+
+    private double attempts(String outcome) {
+        return meterRegistry.get(HadoopClientMetrics.PUSH_ATTEMPTS).tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,212 @@
+package com.db.dataplatform.techtest.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.component.AsyncBigDataClient;
+import com.db.dataplatform.techtest.server.component.BigDataClient;
+import com.db.dataplatform.techtest.server.component.HadoopOutboxDispatcher;
+import com.db.dataplatform.techtest.server.exception.HadoopClientException;
+import com.db.dataplatform.techtest.server.persistence.model.HadoopOutboxEntity;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HadoopOutboxDispatcherTest {
+
+    @Mock
+    private HadoopOutboxService hadoopOutboxServiceMock;
+
+    @Mock
+    private BigDataClient bigDataClientMock;
+
+    @Mock
+    private AsyncBigDataClient asyncBigDataClientMock;
+
+    private HadoopOutboxDispatcher dispatcher;
+    private HadoopOutboxEntity entry;
+    private DataEnvelope testDataEnvelope;
+
+    @Before
+    public void setup() throws IOException {
+        testDataEnvelope = createTestDataEnvelopeApiObject();
+        entry = new HadoopOutboxEntity();
+        entry.setHadoopOutboxId(1L);
+        entry.setDataHeaderName(testDataEnvelope.getDataHeader().getName());
+
+        dispatcher = new HadoopOutboxDispatcher(hadoopOutboxServiceMock, bigDataClientMock, asyncBigDataClientMock);
+        dispatcher.parallelism = 2;
+        dispatcher.maxAttempts = 3;
+        dispatcher.retryBackoffMs = 100;
+        dispatcher.batchSize = 1;
+        dispatcher.batchMaxDelayMs = 500;
+        dispatcher.async = false;
+        dispatcher.start();
+
+        when(hadoopOutboxServiceMock.claimBatch(anyInt(), anyInt(), any())).thenReturn(Collections.singletonList(entry));
+        when(hadoopOutboxServiceMock.readPayload(entry)).thenReturn(testDataEnvelope);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    public void shouldDeliverClaimedEntryAndRemoveIt() throws HadoopClientException {
+        dispatcher.dispatch();
+
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(1)).markDelivered(eq(entry)));
+        verify(bigDataClientMock, times(1)).pushBigData(eq(testDataEnvelope));
+        verify(hadoopOutboxServiceMock, never()).markFailed(any(), anyInt(), any());
+    }
+
+    @Test
+    public void shouldRescheduleEntryWhenPushFails() throws HadoopClientException {
+        doThrow(new HadoopClientException("timeout")).when(bigDataClientMock).pushBigData(any());
+
+        dispatcher.dispatch();
+
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(1))
+                .markFailed(eq(entry), eq(3), eq(Duration.ofMillis(100))));
+        verify(hadoopOutboxServiceMock, never()).markDelivered(any());
+    }
+
+    @Test
+    public void shouldOnlyClaimAsManyEntriesAsFreeWorkers() {
+        dispatcher.dispatch();
+
+        verify(hadoopOutboxServiceMock, times(1)).claimBatch(eq(2), eq(1), eq(Duration.ofMillis(500)));
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(1)).markDelivered(eq(entry)));
+    }
+
+    @Test
+    public void shouldPushClaimedEntriesInBatches() throws Exception {
+        dispatcher.batchSize = 2;
+        List<HadoopOutboxEntity> entries = createEntries(3);
+        when(hadoopOutboxServiceMock.claimBatch(anyInt(), anyInt(), any())).thenReturn(entries);
+
+        dispatcher.dispatch();
+
+        verify(hadoopOutboxServiceMock, times(1)).claimBatch(eq(4), eq(2), eq(Duration.ofMillis(500)));
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(3)).markDelivered(any()));
+        verify(bigDataClientMock, times(1)).pushBigDataBatch(eq(Arrays.asList(testDataEnvelope, testDataEnvelope)));
+        verify(bigDataClientMock, times(1)).pushBigData(eq(testDataEnvelope));
+    }
+
+    @Test
+    public void shouldRescheduleEveryEntryOfFailedBatch() throws Exception {
+        dispatcher.batchSize = 3;
+        List<HadoopOutboxEntity> entries = createEntries(3);
+        when(hadoopOutboxServiceMock.claimBatch(anyInt(), anyInt(), any())).thenReturn(entries);
+        doThrow(new HadoopClientException("timeout")).when(bigDataClientMock).pushBigDataBatch(any());
+
+        dispatcher.dispatch();
+
+        for (HadoopOutboxEntity failed : entries) {
+            await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(1))
+                    .markFailed(eq(failed), eq(3), eq(Duration.ofMillis(100))));
+        }
+        verify(hadoopOutboxServiceMock, never()).markDelivered(any());
+    }
+
+    @Test
+    public void shouldOnlyFailEntryWithUnreadablePayload() throws Exception {
+        dispatcher.batchSize = 3;
+        List<HadoopOutboxEntity> entries = createEntries(3);
+        when(hadoopOutboxServiceMock.claimBatch(anyInt(), anyInt(), any())).thenReturn(entries);
+        when(hadoopOutboxServiceMock.readPayload(entries.get(1))).thenThrow(new IOException("corrupt"));
+
+        dispatcher.dispatch();
+
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(2)).markDelivered(any()));
+        verify(hadoopOutboxServiceMock, times(1)).markFailed(eq(entries.get(1)), anyInt(), any());
+        verify(bigDataClientMock, times(1)).pushBigDataBatch(eq(Arrays.asList(testDataEnvelope, testDataEnvelope)));
+    }
+
+    @Test
+    public void shouldKeepAsyncPushesInFlightBeyondParallelism() throws Exception {
+        dispatcher.async = true;
+        when(asyncBigDataClientMock.getMaxInFlight()).thenReturn(10);
+        List<HadoopOutboxEntity> entries = createEntries(5);
+        when(hadoopOutboxServiceMock.claimBatch(anyInt(), anyInt(), any())).thenReturn(entries);
+        CompletableFuture<Void> hadoopResponse = new CompletableFuture<>();
+        when(asyncBigDataClientMock.pushBigData(any())).thenReturn(hadoopResponse);
+
+        dispatcher.dispatch();
+
+        verify(hadoopOutboxServiceMock, times(1)).claimBatch(eq(10), eq(1), any());
+        await().untilAsserted(() -> assertThat(dispatcher.getInFlight()).isEqualTo(5));
+        verify(asyncBigDataClientMock, times(5)).pushBigData(eq(testDataEnvelope));
+        verify(hadoopOutboxServiceMock, never()).markDelivered(any());
+
+        hadoopResponse.complete(null);
+
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(5)).markDelivered(any()));
+        await().untilAsserted(() -> assertThat(dispatcher.getInFlight()).isZero());
+        verify(bigDataClientMock, never()).pushBigData(any());
+    }
+
+    @Test
+    public void shouldRescheduleEntryWhenAsyncPushFails() throws Exception {
+        dispatcher.async = true;
+        when(asyncBigDataClientMock.getMaxInFlight()).thenReturn(10);
+        CompletableFuture<Void> hadoopResponse = new CompletableFuture<>();
+        hadoopResponse.completeExceptionally(new HadoopClientException("timeout"));
+        when(asyncBigDataClientMock.pushBigData(any())).thenReturn(hadoopResponse);
+
+        dispatcher.dispatch();
+
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(1))
+                .markFailed(eq(entry), eq(3), eq(Duration.ofMillis(100))));
+        verify(hadoopOutboxServiceMock, never()).markDelivered(any());
+    }
+
+    @Test
+    public void shouldPushEntryWithStoredBodyOnItsOwnWithBlockingClient() throws Exception {
+        dispatcher.async = true;
+        dispatcher.batchSize = 3;
+        when(asyncBigDataClientMock.getMaxInFlight()).thenReturn(10);
+        List<HadoopOutboxEntity> entries = createEntries(3);
+        entries.get(1).setBodyStored(true);
+        when(hadoopOutboxServiceMock.claimBatch(anyInt(), anyInt(), any())).thenReturn(entries);
+        when(asyncBigDataClientMock.pushBigDataBatch(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        dispatcher.dispatch();
+
+        await().untilAsserted(() -> verify(hadoopOutboxServiceMock, times(3)).markDelivered(any()));
+        verify(bigDataClientMock, times(1)).pushStoredBigData(eq(testDataEnvelope));
+        verify(asyncBigDataClientMock, times(1)).pushBigDataBatch(eq(Arrays.asList(testDataEnvelope, testDataEnvelope)));
+    }
+
+    private List<HadoopOutboxEntity> createEntries(int count) throws IOException {
+        List<HadoopOutboxEntity> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            HadoopOutboxEntity batchEntry = new HadoopOutboxEntity();
+            batchEntry.setHadoopOutboxId(10L + i);
+            batchEntry.setDataHeaderName(testDataEnvelope.getDataHeader().getName());
+            when(hadoopOutboxServiceMock.readPayload(batchEntry)).thenReturn(testDataEnvelope);
+            entries.add(batchEntry);
+        }
+        return entries;
+    }
+}
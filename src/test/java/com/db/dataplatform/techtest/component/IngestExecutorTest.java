@@ -0,0 +1,106 @@
+package com.db.dataplatform.techtest.component;
+
+import com.db.dataplatform.techtest.server.component.IngestExecutor;
+import com.db.dataplatform.techtest.server.exception.ServerBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class IngestExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestExecutor ingestExecutor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestExecutor = new IngestExecutor(meterRegistry);
+        ingestExecutor.enabled = true;
+        ingestExecutor.threads = 1;
+        ingestExecutor.queueCapacity = 1;
+        ingestExecutor.retryAfterSeconds = 3;
+        ingestExecutor.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        ingestExecutor.stop();
+    }
+
+    @Test
+    public void shouldRunTaskOffCallingThread() throws Exception {
+        String caller = Thread.currentThread().getName();
+
+        String worker = ingestExecutor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertThat(worker).isNotEqualTo(caller).startsWith("ingest-");
+        assertThat(meterRegistry.get(IngestExecutor.ADMITTED).gauge().value()).isZero();
+    }
+
+    @Test
+    public void shouldRunTaskOnCallingThreadWhenDisabled() throws Exception {
+        SimpleMeterRegistry disabledMeterRegistry = new SimpleMeterRegistry();
+        IngestExecutor disabled = new IngestExecutor(disabledMeterRegistry);
+        disabled.start();
+        String caller = Thread.currentThread().getName();
+
+        String worker = disabled.submit(() -> Thread.currentThread().getName()).get();
+        disabled.stop();
+
+        assertThat(worker).isEqualTo(caller);
+        assertThat(disabledMeterRegistry.find(IngestExecutor.ADMITTED).gauge()).isNull();
+        assertThat(disabledMeterRegistry.find("executor.queue.remaining").gauge()).isNull();
+    }
+
+    @Test
+    public void shouldFailFutureWhenTaskFails() {
+        CompletableFuture<Boolean> result = ingestExecutor.submit(() -> {
+            throw new IOException("checksum");
+        });
+
+        assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldRejectTaskBeyondThreadsAndQueueCapacity() throws Exception {
+        CompletableFuture<Boolean> running = ingestExecutor.submit(() -> release.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = ingestExecutor.submit(() -> release.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> rejected = ingestExecutor.submit(() -> true);
+
+        assertThat(meterRegistry.get(IngestExecutor.ADMITTED).gauge().value()).isEqualTo(2);
+        Throwable rejection = rejected.handle((ignored, e) -> e).get();
+        assertThat(rejection).isInstanceOf(ServerBusyException.class);
+        assertThat(((ServerBusyException) rejection).getRetryAfterSeconds()).isEqualTo(3);
+        assertThat(meterRegistry.get(IngestExecutor.REJECTED).counter().count()).isEqualTo(1);
+
+        release.countDown();
+        CompletableFuture.allOf(running, queued).get(5, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get(IngestExecutor.ADMITTED).gauge().value()).isZero();
+    }
+
+    @Test
+    public void shouldPublishExecutorMetrics() throws Exception {
+        ingestExecutor.submit(() -> true).get(5, TimeUnit.SECONDS);
+
+        await().untilAsserted(() -> assertThat(meterRegistry.get("executor.completed")
+                .tag("name", IngestExecutor.EXECUTOR_NAME).functionCounter().count()).isEqualTo(1));
+        assertThat(meterRegistry.get("executor.queue.remaining").tag("name", IngestExecutor.EXECUTOR_NAME)
+                .gauge().value()).isEqualTo(1);
+    }
+}
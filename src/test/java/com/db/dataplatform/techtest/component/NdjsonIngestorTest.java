@@ -0,0 +1,102 @@
+package com.db.dataplatform.techtest.component;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.component.NdjsonIngestor;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObjectWithEmptyName;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NdjsonIngestorTest {
+
+    @Mock
+    private Server serverMock;
+
+    private ObjectMapper objectMapper;
+    private NdjsonIngestor ndjsonIngestor;
+
+    @Before
+    public void setup() throws Exception {
+        objectMapper = new ObjectMapper();
+        ndjsonIngestor = new NdjsonIngestor(serverMock, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ndjsonIngestor.chunkSize = 2;
+
+        when(serverMock.saveDataEnvelopes(anyList())).thenAnswer(invocation -> {
+            List<DataEnvelope> envelopes = invocation.getArgument(0);
+            return envelopes.stream()
+                    .map(envelope -> new PushDataResult(envelope.getDataHeader().getName(), PushDataStatusEnum.CREATED))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    public void shouldPersistRecordsInChunksAndWriteOneResultPerRecord() throws Exception {
+        String line = objectMapper.writeValueAsString(createTestDataEnvelopeApiObject());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long records = ndjsonIngestor.ingest(ndjson(line, line, line, line, line), out);
+
+        assertThat(records).isEqualTo(5);
+        verify(serverMock, times(3)).saveDataEnvelopes(anyList());
+        assertThat(resultLines(out)).hasSize(5).allMatch(result -> result.contains("CREATED"));
+    }
+
+    @Test
+    public void shouldReportInvalidRecordsWithoutPersistingThem() throws Exception {
+        String valid = objectMapper.writeValueAsString(createTestDataEnvelopeApiObject());
+        String invalid = objectMapper.writeValueAsString(createTestDataEnvelopeApiObjectWithEmptyName());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        ndjsonIngestor.ingest(ndjson(valid, invalid), out);
+
+        List<String> results = resultLines(out);
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0)).contains("CREATED");
+        assertThat(results.get(1)).contains("INVALID");
+    }
+
+    @Test
+    public void shouldStopAtMalformedRecordAfterFlushingPreviousOnes() throws Exception {
+        String valid = objectMapper.writeValueAsString(createTestDataEnvelopeApiObject());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long records = ndjsonIngestor.ingest(ndjson(valid, "{\"dataHeader\": tru"), out);
+
+        assertThat(records).isEqualTo(1);
+        List<String> results = resultLines(out);
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0)).contains("CREATED");
+        assertThat(results.get(1)).contains("INVALID");
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> resultLines(ByteArrayOutputStream out) {
+        return Arrays.asList(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+    }
+}
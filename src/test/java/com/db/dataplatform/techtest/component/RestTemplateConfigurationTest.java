@@ -0,0 +1,102 @@
+package com.db.dataplatform.techtest.component;
+
+import com.db.dataplatform.techtest.client.RestTemplateConfiguration;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RestTemplateConfigurationTest {
+
+    private HttpServer httpServer;
+    private String baseUrl;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+
+    @Before
+    public void setup() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpServer.createContext("/fast", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        httpServer.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        httpServer.start();
+        baseUrl = "http://localhost:" + httpServer.getAddress().getPort();
+
+        RestTemplateConfiguration configuration = new RestTemplateConfiguration();
+        configuration.maxTotal = 4;
+        configuration.maxPerRoute = 2;
+        configuration.connectTimeoutMs = 1000;
+        configuration.readTimeoutMs = 200;
+        configuration.connectionRequestTimeoutMs = 1000;
+        configuration.keepAliveMs = 30000;
+        configuration.idleEvictionMs = 30000;
+        configuration.validateAfterInactivityMs = 2000;
+        connectionManager = configuration.httpClientConnectionManager();
+        httpClient = configuration.httpClient(connectionManager);
+        restTemplate = configuration.createRestTemplate(new RestTemplateBuilder(), httpClient);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        httpClient.close();
+        httpServer.stop(0);
+    }
+
+    @Test
+    public void shouldApplyPoolLimits() {
+        assertThat(connectionManager.getTotalStats().getMax()).isEqualTo(4);
+        assertThat(connectionManager.getDefaultMaxPerRoute()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReuseKeptAliveConnection() {
+        for (int i = 0; i < 3; i++) {
+            restTemplate.getForEntity(baseUrl + "/fast", String.class);
+        }
+
+        assertThat(connectionManager.getTotalStats().getAvailable()).isEqualTo(1);
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+    }
+
+    @Test
+    public void shouldTimeOutSlowResponse() {
+        assertThatThrownBy(() -> restTemplate.getForEntity(baseUrl + "/slow", String.class))
+                .isInstanceOf(ResourceAccessException.class);
+    }
+
+    @Test
+    public void shouldPublishPoolMetrics() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        new RestTemplateConfiguration().httpClientConnectionPoolMetrics(connectionManager).bindTo(meterRegistry);
+
+        restTemplate.getForEntity(baseUrl + "/fast", String.class);
+
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", RestTemplateConfiguration.POOL_NAME).gauge().value()).isEqualTo(4);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("state", "available").gauge().value()).isEqualTo(1);
+    }
+}
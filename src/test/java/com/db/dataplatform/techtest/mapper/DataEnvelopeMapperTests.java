@@ -0,0 +1,44 @@
+package com.db.dataplatform.techtest.mapper;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.TEST_NAME;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DataEnvelopeMapperTests {
+
+    private final DataEnvelopeMapper dataEnvelopeMapper = new DataEnvelopeMapper();
+
+    @Test
+    public void shouldMapEnvelopeToEntities() {
+        DataBodyEntity dataBodyEntity = dataEnvelopeMapper.toEntity(createTestDataEnvelopeApiObject());
+
+        assertThat(dataBodyEntity.getDataBody()).isEqualTo(DUMMY_DATA);
+        assertThat(dataBodyEntity.getDataStoreId()).isNull();
+        assertThat(dataBodyEntity.getDataHeaderEntity().getName()).isEqualTo(TEST_NAME);
+        assertThat(dataBodyEntity.getDataHeaderEntity().getBlocktype()).isEqualTo(BlockTypeEnum.BLOCKTYPEA);
+        assertThat(dataBodyEntity.getDataHeaderEntity().getDataHeaderId()).isNull();
+    }
+
+    @Test
+    public void shouldMapEntitiesToEnvelope() {
+        DataBodyEntity dataBodyEntity = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+
+        DataEnvelope envelope = dataEnvelopeMapper.toEnvelope(dataBodyEntity);
+
+        assertThat(envelope.getDataBody().getDataBody()).isEqualTo(dataBodyEntity.getDataBody());
+        assertThat(envelope.getDataHeader().getName()).isEqualTo(dataBodyEntity.getDataHeaderEntity().getName());
+        assertThat(envelope.getDataHeader().getBlockType()).isEqualTo(dataBodyEntity.getDataHeaderEntity().getBlocktype());
+        assertThat(envelope.getChecksum()).isNull();
+    }
+}
@@ -0,0 +1,45 @@
+package com.db.dataplatform.techtest.persistence;
+
+import com.db.dataplatform.techtest.server.persistence.BodyCodecEnum;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BodyCodecEnumTests {
+
+    private static final String UNICODE_DATA = "Grüße, 数据, данные ";
+
+    @Test
+    public void everyCodecShouldRoundTripBody() {
+        for (BodyCodecEnum codec : BodyCodecEnum.values()) {
+            assertThat(codec.decode(codec.encode(DUMMY_DATA))).isEqualTo(DUMMY_DATA);
+            assertThat(codec.decode(codec.encode(UNICODE_DATA))).isEqualTo(UNICODE_DATA);
+            assertThat(codec.decode(codec.encode(""))).isEmpty();
+        }
+    }
+
+    @Test
+    public void deflateShouldShrinkRepetitiveBody() {
+        char[] repetitive = new char[1000];
+        Arrays.fill(repetitive, 'A');
+        String body = new String(repetitive);
+
+        byte[] encoded = BodyCodecEnum.DEFLATE.encode(body);
+
+        assertThat(encoded.length).isLessThan(body.getBytes(StandardCharsets.UTF_8).length / 10);
+        assertThat(BodyCodecEnum.DEFLATE.decode(encoded)).isEqualTo(body);
+    }
+
+    @Test
+    public void deflateShouldRejectTruncatedData() {
+        byte[] encoded = BodyCodecEnum.DEFLATE.encode(UNICODE_DATA + UNICODE_DATA);
+
+        assertThatThrownBy(() -> BodyCodecEnum.DEFLATE.decode(Arrays.copyOf(encoded, encoded.length / 2)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,73 @@
+package com.db.dataplatform.techtest.persistence;
+
+import com.db.dataplatform.techtest.EmbeddedDataSourceConfiguration;
+import com.db.dataplatform.techtest.StorageModeEnum;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the schema scripts against a file database more than once, as every restart of the application does.
+ */
+public class FileStorageTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HikariDataSource dataSource;
+
+    @After
+    public void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Test
+    public void dataShouldSurviveRestart() {
+        String databasePath = folder.getRoot().getAbsolutePath() + "/techtest";
+        dataSource = start(databasePath, 50);
+        new JdbcTemplate(dataSource).update("insert into DATA_HEADER (DATA_HEADER_ID, NAME, BLOCKTYPE, CREATED_TIMESTAMP)"
+                + " values (1, 'KEPT', 'BLOCKTYPEA', current_timestamp)");
+        dataSource.close();
+
+        dataSource = start(databasePath, 50);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        assertThat(jdbcTemplate.queryForList("select NAME from DATA_HEADER", String.class)).containsExactly("KEPT");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from INFORMATION_SCHEMA.CONSTRAINTS"
+                + " where TABLE_NAME = 'DATA_STORE' and CONSTRAINT_TYPE = 'REFERENTIAL'", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    public void restartWithOtherIdBlockSizeShouldFailAndKeepSequences() {
+        String databasePath = folder.getRoot().getAbsolutePath() + "/techtest";
+        dataSource = start(databasePath, 50);
+        dataSource.close();
+
+        assertThatThrownBy(() -> start(databasePath, 20))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("SEQ_DATA_HEADER increments by 50");
+
+        dataSource = start(databasePath, 50);
+        assertThat(new JdbcTemplate(dataSource).queryForList("select distinct INCREMENT from INFORMATION_SCHEMA.SEQUENCES"
+                + " where SEQUENCE_NAME like 'SEQ_%'", Long.class)).containsExactly(50L);
+    }
+
+    static HikariDataSource start(String databasePath, int idBlockSize) {
+        EmbeddedDataSourceConfiguration configuration = new EmbeddedDataSourceConfiguration();
+        configuration.idBlockSize = idBlockSize;
+        configuration.storageMode = StorageModeEnum.FILE;
+        configuration.databasePath = databasePath;
+        configuration.cacheSizeKb = 1024;
+        configuration.writeDelayMs = 0;
+        configuration.compress = true;
+        return (HikariDataSource) configuration.dataSource();
+    }
+}
@@ -0,0 +1,97 @@
+package com.db.dataplatform.techtest.persistence;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.PooledSequenceGenerator;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocates data header ids through Hibernate against a file database, restarting in between as a server does.
+ */
+public class PooledSequenceGeneratorTests {
+
+    private static final int BLOCK_SIZE = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String databasePath;
+
+    @Before
+    public void setUp() {
+        databasePath = folder.getRoot().getAbsolutePath() + "/techtest";
+    }
+
+    @Test
+    public void idsShouldStayUniqueAcrossRestarts() {
+        Set<Long> ids = new HashSet<>();
+        for (int restart = 0; restart < 3; restart++) {
+            List<Long> allocated = saveHeaders("RESTART-" + restart, 3);
+
+            assertThat(allocated).doesNotHaveDuplicates().doesNotContainNull();
+            assertThat(ids).doesNotContainAnyElementsOf(allocated);
+            ids.addAll(allocated);
+        }
+    }
+
+    @Test
+    public void shouldDrawOneSequenceValuePerBlock() {
+        List<Long> ids = saveHeaders("BLOCK", 2 * BLOCK_SIZE + 20);
+
+        assertThat(ids).doesNotHaveDuplicates();
+        try (HikariDataSource dataSource = FileStorageTests.start(databasePath, BLOCK_SIZE)) {
+            Long sequenceValue = new JdbcTemplate(dataSource).queryForObject("select CURRENT_VALUE"
+                    + " from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = 'SEQ_DATA_HEADER'", Long.class);
+            // one value for each of the three blocks, and one more the pooled optimizer takes on its first call
+            assertThat(sequenceValue).isEqualTo(1 + 3L * BLOCK_SIZE);
+        }
+    }
+
+    private List<Long> saveHeaders(String namePrefix, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        try (HikariDataSource dataSource = FileStorageTests.start(databasePath, BLOCK_SIZE);
+             SessionFactory sessionFactory = sessionFactory(dataSource);
+             Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+                dataHeaderEntity.setName(namePrefix + "-" + i);
+                dataHeaderEntity.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+                session.persist(dataHeaderEntity);
+                ids.add(dataHeaderEntity.getDataHeaderId());
+            }
+            session.getTransaction().commit();
+        }
+        return ids;
+    }
+
+    private static SessionFactory sessionFactory(DataSource dataSource) {
+        return new MetadataSources(new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .applySetting(PooledSequenceGenerator.BLOCK_SIZE_SETTING, String.valueOf(BLOCK_SIZE))
+                .build())
+                .addAnnotatedClass(DataHeaderEntity.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+}
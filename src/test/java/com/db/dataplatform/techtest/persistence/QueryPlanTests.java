@@ -0,0 +1,123 @@
+package com.db.dataplatform.techtest.persistence;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.repository.DataBodyContentRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the indexes used by the data store lookups by checking the H2 query plans of the SQL that Hibernate
+ * generates for the repository queries. The SQL is captured from the query statistics of the database while
+ * the repository method runs, and explained with its parameters unset.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TechTestApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"techtest.demo-flow.enabled=false", "outbox.dispatcher.enabled=false", "ingest.async.enabled=false"})
+public class QueryPlanTests {
+
+    @Autowired
+    private DataStoreRepository dataStoreRepository;
+
+    @Autowired
+    private DataBodyContentRepository dataBodyContentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    public void blockTypeLookupShouldUseIndexes() {
+        String plan = planOf(() -> dataStoreRepository.findByDataHeaderEntityBlocktype(BlockTypeEnum.BLOCKTYPEA));
+
+        assertThat(plan).contains("IDX_DATA_HEADER_BLOCKTYPE");
+        assertThat(plan).contains("IDX_DATA_STORE_DATA_HEADER");
+        assertThat(plan).doesNotContain("tableScan");
+    }
+
+    @Test
+    public void blockTypeStreamShouldUseIndexes() {
+        String plan = planOf(() -> dataStoreRepository.streamByDataHeaderEntityBlocktype(BlockTypeEnum.BLOCKTYPEA)
+                .close());
+
+        assertThat(plan).contains("IDX_DATA_HEADER_BLOCKTYPE");
+        assertThat(plan).contains("IDX_DATA_STORE_DATA_HEADER");
+        assertThat(plan).doesNotContain("tableScan");
+    }
+
+    @Test
+    public void blockTypePageShouldSeekAndOrderOnIndex() {
+        String plan = planOf(() -> dataStoreRepository.findPageByDataHeaderEntityBlocktype(BlockTypeEnum.BLOCKTYPEA,
+                100L, PageRequest.of(0, 11)));
+
+        assertThat(plan).containsPattern("IDX_DATA_HEADER_BLOCKTYPE: BLOCKTYPE = \\?1\\s+AND DATA_HEADER_ID > \\?2");
+        assertThat(plan).contains("IDX_DATA_STORE_DATA_HEADER");
+        assertThat(plan).contains("index sorted");
+        assertThat(plan).doesNotContain("tableScan");
+    }
+
+    @Test
+    public void nameLookupShouldUseIndexes() {
+        String plan = planOf(() -> dataStoreRepository.findByDataHeaderEntityName("TSLA-USDGBP-10Y"));
+
+        assertThat(plan).contains("UK_DATA_HEADER");
+        assertThat(plan).contains("IDX_DATA_STORE_DATA_HEADER");
+        assertThat(plan).doesNotContain("tableScan");
+    }
+
+    @Test
+    public void contentHashLookupShouldUseIndex() {
+        String plan = planOf(() -> dataBodyContentRepository.findByContentHashIn(Arrays.asList("00", "01")));
+
+        assertThat(plan).contains("UK_DATA_BODY_CONTENT");
+        assertThat(plan).doesNotContain("tableScan");
+    }
+
+    @Test
+    public void dataStoreShouldHaveNoRedundantIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList("select distinct INDEX_NAME from INFORMATION_SCHEMA.INDEXES"
+                + " where TABLE_NAME = 'DATA_STORE' and INDEX_TYPE_NAME <> 'PRIMARY KEY'", String.class);
+
+        // the foreign keys are backed by these rather than by indexes of their own
+        assertThat(indexes).containsOnly("IDX_DATA_STORE_DATA_HEADER", "IDX_DATA_STORE_CREATED", "IDX_DATA_STORE_CONTENT");
+    }
+
+    /**
+     * Runs the query in a transaction with the query statistics of the database switched on, so that exactly
+     * the SQL it executes is recorded, and explains that SQL.
+     */
+    private String planOf(Runnable query) {
+        jdbcTemplate.execute("set QUERY_STATISTICS TRUE");
+        List<String> statements;
+        try {
+            transactionTemplate.execute(status -> {
+                query.run();
+                return null;
+            });
+            statements = jdbcTemplate.queryForList("select SQL_STATEMENT from INFORMATION_SCHEMA.QUERY_STATISTICS"
+                    + " where lower(SQL_STATEMENT) like 'select %' and SQL_STATEMENT not like '%INFORMATION_SCHEMA%'",
+                    String.class);
+        } finally {
+            // also clears the statistics for the next query
+            jdbcTemplate.execute("set QUERY_STATISTICS FALSE");
+        }
+
+        assertThat(statements).hasSize(1);
+        return jdbcTemplate.query(connection -> connection.prepareStatement("explain " + statements.get(0)),
+                resultSet -> resultSet.next() ? resultSet.getString(1) : null);
+    }
+}
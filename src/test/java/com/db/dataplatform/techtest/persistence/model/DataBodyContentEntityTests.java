@@ -0,0 +1,82 @@
+package com.db.dataplatform.techtest.persistence.model;
+
+import com.db.dataplatform.techtest.server.persistence.BodyCodecEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Random;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyContentEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataBodyContentEntityTests {
+
+    @Test
+    public void compressibleDataBodyShouldBeStoredWithPreferredCodec() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            body.append("{\"reading\":").append(i).append(",\"unit\":\"kWh\"}");
+        }
+        DataBodyContentEntity content = new DataBodyContentEntity();
+        content.setDataBody(body.toString());
+
+        content.setTimestamps();
+        content.decodeDataBody();
+
+        assertThat(content.getDataBodyCodec()).isEqualTo(BodyCodecEnum.PREFERRED);
+        assertThat(content.getDataBody()).isEqualTo(body.toString());
+    }
+
+    @Test
+    public void incompressibleDataBodyShouldBeStoredPlain() {
+        DataBodyContentEntity content = createTestDataBodyContentEntity();
+
+        content.setTimestamps();
+        content.decodeDataBody();
+
+        assertThat(content.getDataBodyCodec()).isEqualTo(BodyCodecEnum.NONE);
+        assertThat(content.getDataBody()).isEqualTo(DUMMY_DATA);
+    }
+
+    @Test
+    public void changedDataBodyShouldBeEncodedAgainOnUpdate() {
+        DataBodyContentEntity content = createTestDataBodyContentEntity();
+        content.setTimestamps();
+        content.decodeDataBody();
+        String changed = DUMMY_DATA + DUMMY_DATA + DUMMY_DATA + DUMMY_DATA;
+
+        content.setDataBody(changed);
+        assertThat(content.getDataBodyCodec()).isNull();
+        content.encodeDataBody();
+        content.decodeDataBody();
+
+        assertThat(content.getDataBodyCodec()).isEqualTo(BodyCodecEnum.PREFERRED);
+        assertThat(content.getDataBody()).isEqualTo(changed);
+        assertThat(content.getDataBodyBytes()).isEqualTo(changed.length());
+    }
+
+    @Test
+    public void dataBodyShouldFitInRowOnlyWhenEncodedBodyDoes() {
+        StringBuilder compressible = new StringBuilder();
+        StringBuilder incompressible = new StringBuilder();
+        Random random = new Random(1);
+        while (compressible.length() < 2 * DataBodyContentEntity.MAX_STORED_BODY_BYTES) {
+            compressible.append("{\"reading\":").append(compressible.length()).append(",\"unit\":\"kWh\"}");
+        }
+        while (incompressible.length() < 2 * DataBodyContentEntity.MAX_STORED_BODY_BYTES) {
+            incompressible.append((char) ('!' + random.nextInt(90)));
+        }
+        DataBodyContentEntity content = new DataBodyContentEntity();
+
+        content.setDataBody(compressible.toString());
+        assertThat(content.fitsInRow()).isTrue();
+        assertThat(content.getDataBodyBytes()).isEqualTo(compressible.length());
+
+        content.setDataBody(incompressible.toString());
+        assertThat(content.fitsInRow()).isFalse();
+    }
+}
@@ -1,53 +1,65 @@
-package com.db.dataplatform.techtest.persistence.model;
-
-import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
-import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
-import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
-import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.junit.MockitoJUnitRunner;
-
-import java.time.Instant;
-
-import static com.db.dataplatform.techtest.TestDataHelper.*;
-import static org.assertj.core.api.Assertions.assertThat;
-
-@RunWith(MockitoJUnitRunner.class)
-public class DataBodyEntityTests {
-
-    @Test
-    public void assignDataBodyEntityFieldsShouldWorkAsExpected() {
-        Instant expectedTimestamp = Instant.now();
-
-        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
-        dataHeaderEntity.setName(TEST_NAME);
-        dataHeaderEntity.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
-        dataHeaderEntity.setCreatedTimestamp(expectedTimestamp);
-
-        DataBodyEntity dataBodyEntity = createTestDataBodyEntity(dataHeaderEntity);
-
-        assertThat(dataBodyEntity.getDataHeaderEntity()).isNotNull();
-        assertThat(dataBodyEntity.getDataBody()).isNotNull();
-    }
-
-    /**
-     * This test intentionally fails and the code it tests against will need to be fixed.
-     */
-    @Test
-    public void checkTwoDataBodiesAreEqualAsExpected() {
-
-        DataHeaderEntity dataHeaderEntity1 = new DataHeaderEntity();
-        dataHeaderEntity1.setName(TEST_NAME);
-        dataHeaderEntity1.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
-        dataHeaderEntity1.setCreatedTimestamp(Instant.now());
-        DataBodyEntity dataBodyEntity1 = createTestDataBodyEntity(dataHeaderEntity1);
-
-        DataHeaderEntity dataHeaderEntity2 = new DataHeaderEntity();
-        dataHeaderEntity2.setName(TEST_NAME);
-        dataHeaderEntity2.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
-        dataHeaderEntity2.setCreatedTimestamp(Instant.now().plusSeconds(100L));
-        DataBodyEntity dataBodyEntity2 = createTestDataBodyEntity(dataHeaderEntity2);
-
-        assertThat(dataBodyEntity1).isEqualTo(dataBodyEntity2);
-    }
-}
+package com.db.dataplatform.techtest.persistence.model;
+
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Instant;
+
+import static com.db.dataplatform.techtest.TestDataHelper.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DataBodyEntityTests {
+
+    @Test
+    public void assignDataBodyEntityFieldsShouldWorkAsExpected() {
+        Instant expectedTimestamp = Instant.now();
+
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setName(TEST_NAME);
+        dataHeaderEntity.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+        dataHeaderEntity.setCreatedTimestamp(expectedTimestamp);
+
+        DataBodyEntity dataBodyEntity = createTestDataBodyEntity(dataHeaderEntity);
+
+        assertThat(dataBodyEntity.getDataHeaderEntity()).isNotNull();
+        assertThat(dataBodyEntity.getDataBody()).isNotNull();
+    }
+
+    /**
+     * This test intentionally fails and the code it tests against will need to be fixed.
+     */
+    @Test
+    public void checkTwoDataBodiesAreEqualAsExpected() {
+
+        DataHeaderEntity dataHeaderEntity1 = new DataHeaderEntity();
+        dataHeaderEntity1.setName(TEST_NAME);
+        dataHeaderEntity1.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+        dataHeaderEntity1.setCreatedTimestamp(Instant.now());
+        DataBodyEntity dataBodyEntity1 = createTestDataBodyEntity(dataHeaderEntity1);
+
+        DataHeaderEntity dataHeaderEntity2 = new DataHeaderEntity();
+        dataHeaderEntity2.setName(TEST_NAME);
+        dataHeaderEntity2.setBlocktype(BlockTypeEnum.BLOCKTYPEA);
+        dataHeaderEntity2.setCreatedTimestamp(Instant.now().plusSeconds(100L));
+        DataBodyEntity dataBodyEntity2 = createTestDataBodyEntity(dataHeaderEntity2);
+
+        assertThat(dataBodyEntity1).isEqualTo(dataBodyEntity2);
+    }
+
+    @Test
+    public void storedDataBodyShouldBeReadFromItsContent() {
+        DataBodyEntity dataBodyEntity = createTestDataBodyEntity(createTestDataHeaderEntity(Instant.now()));
+        DataBodyContentEntity content = new DataBodyContentEntity();
+        content.setDataBody("stored body");
+
+        dataBodyEntity.setContent(content);
+
+        assertThat(dataBodyEntity.getDataBody()).isEqualTo("stored body");
+    }
+}
@@ -0,0 +1,166 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.TechTestApplication;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.Server;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.BodyCodecEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Stores the same body from several transactions at once against the embedded database, and changes a
+ * stored body.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = TechTestApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"techtest.demo-flow.enabled=false", "outbox.dispatcher.enabled=false", "ingest.async.enabled=false"})
+public class DataBodyServiceIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private Server server;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ChecksumCalculator checksumCalculator = new ChecksumCalculator();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldStoreSameNewBodyOnceWhenSavedConcurrently() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String body = "concurrent body " + round;
+            String checksum = checksumCalculator.checksum(body, ChecksumAlgorithmEnum.DEFAULT);
+            List<Callable<PushDataStatusEnum>> pushes = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                DataHeader dataHeader = new DataHeader("CONCURRENT-" + round + "-" + thread, BlockTypeEnum.BLOCKTYPEA);
+                pushes.add(() -> server.saveDataEnvelope(new DataEnvelope(dataHeader, new DataBody(body), checksum)));
+            }
+
+            assertThat(runTogether(pushes)).containsOnly(PushDataStatusEnum.CREATED);
+            assertThat(referenceCountOf(body)).isEqualTo(THREADS);
+        }
+    }
+
+    @Test
+    public void shouldStoreSameNewChunkedBodyOnceWhenStreamedConcurrently() throws Exception {
+        byte[] body = largeBody();
+        String checksum = checksumCalculator.checksum(new String(body, StandardCharsets.UTF_8),
+                ChecksumAlgorithmEnum.DEFAULT);
+        List<Callable<PushDataStatusEnum>> pushes = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            DataHeader dataHeader = new DataHeader("STREAMED-CONCURRENT-" + thread, BlockTypeEnum.BLOCKTYPEA);
+            pushes.add(() -> server.saveDataStream(dataHeader, new ByteArrayInputStream(body), null, checksum));
+        }
+
+        assertThat(runTogether(pushes)).containsOnly(PushDataStatusEnum.CREATED);
+        assertThat(jdbcTemplate.queryForList("select REFERENCE_COUNT from DATA_BODY_CONTENT where DATA_BODY_CHUNKS > 0"
+                + " and DATA_BODY_BYTES = ?", Integer.class, body.length)).containsExactly(THREADS);
+    }
+
+    @Test
+    public void shouldWriteChangedBodyOfLoadedContent() throws Exception {
+        String body = "body to change";
+        DataHeader dataHeader = new DataHeader("CHANGED", BlockTypeEnum.BLOCKTYPEA);
+        server.saveDataEnvelope(new DataEnvelope(dataHeader, new DataBody(body),
+                checksumCalculator.checksum(body, ChecksumAlgorithmEnum.DEFAULT)));
+        Long contentId = jdbcTemplate.queryForObject("select DATA_BODY_CONTENT_ID from DATA_BODY_CONTENT"
+                + " where CONTENT_HASH = ?", Long.class, checksumCalculator.checksum(body,
+                DataBodyContentEntity.CONTENT_HASH_ALGORITHM));
+        StringBuilder changed = new StringBuilder();
+        while (changed.length() < 1000) {
+            changed.append("{\"reading\":").append(changed.length()).append(",\"unit\":\"kWh\"}");
+        }
+
+        transactionTemplate.execute(status -> {
+            entityManager.find(DataBodyContentEntity.class, contentId).setDataBody(changed.toString());
+            return null;
+        });
+        DataBodyContentEntity reloaded = transactionTemplate.execute(status ->
+                entityManager.find(DataBodyContentEntity.class, contentId));
+
+        assertThat(reloaded.getDataBody()).isEqualTo(changed.toString());
+        assertThat(reloaded.getDataBodyCodec()).isEqualTo(BodyCodecEnum.PREFERRED);
+        assertThat(reloaded.getDataBodyBytes()).isEqualTo(changed.length());
+    }
+
+    private <T> List<T> runTogether(List<Callable<T>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private int referenceCountOf(String body) {
+        String hash = checksumCalculator.checksum(body, DataBodyContentEntity.CONTENT_HASH_ALGORITHM);
+        return jdbcTemplate.queryForObject("select REFERENCE_COUNT from DATA_BODY_CONTENT where CONTENT_HASH = ?",
+                Integer.class, hash);
+    }
+
+    private static byte[] largeBody() {
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 200_000) {
+            builder.append(Long.toHexString(random.nextLong()));
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,23 +1,60 @@
 package com.db.dataplatform.techtest.service;
 
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.BodyStoreMetrics;
+import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyChunkEntity;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.DataBodyChunkRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataBodyContentRepository;
+import com.db.dataplatform.techtest.server.persistence.repository.DataHeaderRepository;
 import com.db.dataplatform.techtest.server.persistence.repository.DataStoreRepository;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
 import com.db.dataplatform.techtest.server.service.impl.DataBodyServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
 
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataBodyEntity;
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataHeaderEntity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DataBodyServiceTests {
@@ -27,23 +64,269 @@ public class DataBodyServiceTests {
     @Mock
     private DataStoreRepository dataStoreRepositoryMock;
 
+    @Mock
+    private DataHeaderRepository dataHeaderRepositoryMock;
+
+    @Mock
+    private DataBodyContentRepository dataBodyContentRepositoryMock;
+
+    @Mock
+    private DataBodyChunkRepository dataBodyChunkRepositoryMock;
+
+    @Mock
+    private EntityManager entityManagerMock;
+
+    @Mock
+    private JdbcTemplate jdbcTemplateMock;
+
+    @Mock
+    private Connection connectionMock;
+
+    @Mock
+    private Savepoint savepointMock;
+
     private DataBodyService dataBodyService;
     private DataBodyEntity expectedDataBodyEntity;
+    private BodyStoreMetrics bodyStoreMetrics;
 
     @Before
-    public void setup() {
+    public void setup() throws SQLException {
         DataHeaderEntity testDataHeaderEntity = createTestDataHeaderEntity(Instant.now());
         expectedDataBodyEntity = createTestDataBodyEntity(testDataHeaderEntity);
 
-        dataBodyService = new DataBodyServiceImpl(dataStoreRepositoryMock);
+        bodyStoreMetrics = new BodyStoreMetrics(new SimpleMeterRegistry());
+        dataBodyService = new DataBodyServiceImpl(dataStoreRepositoryMock, dataHeaderRepositoryMock,
+                dataBodyContentRepositoryMock, dataBodyChunkRepositoryMock, new ChecksumCalculator(),
+                bodyStoreMetrics, entityManagerMock, jdbcTemplateMock);
+        ((DataBodyServiceImpl) dataBodyService).chunkSize = 1024;
+        lenient().when(jdbcTemplateMock.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connectionMock));
+        lenient().when(connectionMock.setSavepoint()).thenReturn(savepointMock);
     }
 
     @Test
     public void shouldSaveDataBodyEntityAsExpected(){
         dataBodyService.saveDataBody(expectedDataBodyEntity);
 
+        verify(entityManagerMock, times(1)).persist(any(DataBodyContentEntity.class));
         verify(dataStoreRepositoryMock, times(1))
-                .save(eq(expectedDataBodyEntity));
+                .saveAll(eq(Collections.singletonList(expectedDataBodyEntity)));
+        assertThat(expectedDataBodyEntity.getContent().getContentHash()).hasSize(64);
+    }
+
+    @Test
+    public void shouldStoreIdenticalDataBodiesOfBatchOnce() {
+        assignContentIds();
+        DataBodyEntity first = dataBody("same body");
+        DataBodyEntity second = dataBody("same body");
+        DataBodyEntity other = dataBody("other body");
+
+        dataBodyService.saveDataBodies(Arrays.asList(first, second, other));
+
+        assertThat(second.getContent()).isSameAs(first.getContent());
+        assertThat(other.getContent()).isNotSameAs(first.getContent());
+        verify(entityManagerMock, times(2)).persist(any(DataBodyContentEntity.class));
+        verify(dataBodyContentRepositoryMock).addReferences(eq(first.getContent().getDataBodyContentId()), eq(1));
+        assertThat(bodyStoreMetrics.dedupRatio()).isEqualTo(1.0 / 3);
+    }
+
+    @Test
+    public void shouldReferenceStoredContentOfIdenticalDataBody() {
+        DataBodyContentEntity stored = new DataBodyContentEntity();
+        stored.setDataBodyContentId(5L);
+        stored.setContentHash(new ChecksumCalculator().checksum("same body", DataBodyContentEntity.CONTENT_HASH_ALGORITHM));
+        when(dataBodyContentRepositoryMock.findByContentHashIn(anyCollection()))
+                .thenReturn(Collections.singletonList(stored));
+        DataBodyEntity dataBody = dataBody("same body");
+
+        dataBodyService.saveDataBody(dataBody);
+
+        assertThat(dataBody.getContent()).isSameAs(stored);
+        verify(entityManagerMock, never()).persist(any());
+        verify(dataBodyContentRepositoryMock).addReferences(eq(5L), eq(1));
+    }
+
+    @Test
+    public void shouldReferenceContentOfIdenticalDataBodyStoredConcurrently() throws SQLException {
+        assignContentIds();
+        DataBodyContentEntity stored = new DataBodyContentEntity();
+        stored.setDataBodyContentId(5L);
+        doThrow(new DuplicateKeyException("UK_DATA_BODY_CONTENT"))
+                .when(jdbcTemplateMock).update(anyString(), (Object[]) any());
+        when(dataBodyContentRepositoryMock.findByContentHash(any())).thenReturn(Optional.of(stored));
+        DataBodyEntity dataBody = dataBody("same body");
+
+        dataBodyService.saveDataBody(dataBody);
+
+        assertThat(dataBody.getContent()).isSameAs(stored);
+        verify(entityManagerMock).remove(any(DataBodyContentEntity.class));
+        verify(connectionMock).rollback(savepointMock);
+        verify(dataBodyContentRepositoryMock).addReferences(eq(5L), eq(1));
+        assertThat(bodyStoreMetrics.dedupRatio()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void shouldNotStoreChunksOfDataBodyStoredConcurrently() {
+        assignContentIds();
+        DataBodyContentEntity stored = new DataBodyContentEntity();
+        stored.setDataBodyContentId(5L);
+        doThrow(new DuplicateKeyException("UK_DATA_BODY_CONTENT"))
+                .when(jdbcTemplateMock).update(anyString(), (Object[]) any());
+        when(dataBodyContentRepositoryMock.findByContentHash(any())).thenReturn(Optional.of(stored));
+        DataBodyEntity dataBody = dataBody(incompressible(3 * DataBodyContentEntity.MAX_STORED_BODY_BYTES));
+
+        dataBodyService.saveDataBody(dataBody);
+
+        assertThat(dataBody.getContent()).isSameAs(stored);
+        verify(entityManagerMock, never()).persist(any(DataBodyChunkEntity.class));
+        verify(dataBodyChunkRepositoryMock).deleteByDataBodyContentId(eq(1L));
+    }
+
+    @Test
+    public void shouldStoreShortStreamedDataBodyInRow() throws IOException {
+        DataBodyEntity dataBody = new DataBodyEntity();
+
+        dataBodyService.saveDataBody(dataBody, stream("short body"));
+
+        assertThat(dataBody.getDataBody()).isEqualTo("short body");
+        assertThat(dataBody.getContent().isChunked()).isFalse();
+        verify(dataStoreRepositoryMock).saveAll(eq(Collections.singletonList(dataBody)));
+        verify(entityManagerMock, never()).persist(any(DataBodyChunkEntity.class));
+    }
+
+    @Test
+    public void shouldStoreLongStreamedDataBodyInChunks() throws IOException {
+        assignContentIds();
+        DataBodyEntity dataBody = new DataBodyEntity();
+
+        dataBodyService.saveDataBody(dataBody, stream(incompressible(2500)));
+
+        DataBodyContentEntity content = dataBody.getContent();
+        assertThat(content.getDataBody()).isNull();
+        assertThat(content.getDataBodyChunks()).isEqualTo(3);
+        assertThat(content.getDataBodyBytes()).isEqualTo(2500);
+        assertThat(content.getContentHash()).hasSize(64);
+        verify(entityManagerMock, times(3)).persist(any(DataBodyChunkEntity.class));
+        verify(entityManagerMock, times(3)).detach(any(DataBodyChunkEntity.class));
+        verify(dataStoreRepositoryMock).save(eq(dataBody));
+    }
+
+    @Test
+    public void shouldDropChunksOfStreamedDataBodyAlreadyStored() throws IOException {
+        assignContentIds();
+        DataBodyContentEntity stored = new DataBodyContentEntity();
+        stored.setDataBodyContentId(5L);
+        stored.setDataBodyBytes(2500);
+        when(dataBodyContentRepositoryMock.findByContentHash(any())).thenReturn(Optional.of(stored));
+        DataBodyEntity dataBody = new DataBodyEntity();
+
+        dataBodyService.saveDataBody(dataBody, stream(incompressible(2500)));
+
+        assertThat(dataBody.getContent()).isSameAs(stored);
+        verify(dataBodyChunkRepositoryMock).deleteByDataBodyContentId(eq(1L));
+        verify(entityManagerMock).remove(any(DataBodyContentEntity.class));
+        verify(dataBodyContentRepositoryMock).addReferences(eq(5L), eq(1));
+        assertThat(bodyStoreMetrics.dedupRatio()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void shouldDropChunksOfStreamedDataBodyStoredConcurrently() throws IOException {
+        assignContentIds();
+        DataBodyContentEntity stored = new DataBodyContentEntity();
+        stored.setDataBodyContentId(5L);
+        doThrow(new DuplicateKeyException("UK_DATA_BODY_CONTENT"))
+                .when(jdbcTemplateMock).update(anyString(), (Object[]) any());
+        when(dataBodyContentRepositoryMock.findByContentHash(any()))
+                .thenReturn(Optional.empty(), Optional.of(stored));
+        DataBodyEntity dataBody = new DataBodyEntity();
+
+        dataBodyService.saveDataBody(dataBody, stream(incompressible(2500)));
+
+        assertThat(dataBody.getContent()).isSameAs(stored);
+        verify(dataBodyChunkRepositoryMock).deleteByDataBodyContentId(eq(1L));
+        verify(dataBodyContentRepositoryMock).addReferences(eq(5L), eq(1));
+    }
+
+    @Test
+    public void shouldStoreDataBodyTooLargeForRowInChunks() {
+        DataBodyEntity dataBody = dataBody(incompressible(3 * DataBodyContentEntity.MAX_STORED_BODY_BYTES));
+
+        dataBodyService.saveDataBody(dataBody);
+
+        assertThat(dataBody.getContent().getDataBodyChunks()).isEqualTo(12);
+        verify(entityManagerMock, times(12)).persist(any(DataBodyChunkEntity.class));
+    }
+
+    @Test
+    public void shouldWriteChunksOfDataBodyInOrder() throws IOException {
+        DataBodyContentEntity content = new DataBodyContentEntity();
+        content.setDataBodyContentId(7L);
+        content.setDataBodyChunks(2);
+        DataBodyEntity dataBody = new DataBodyEntity();
+        dataBody.setContent(content);
+        when(dataBodyChunkRepositoryMock.findById(any())).thenAnswer(invocation -> {
+            DataBodyChunkEntity.ChunkId id = invocation.getArgument(0);
+            byte[] data = ("chunk-" + id.getChunkIndex() + ";").getBytes(StandardCharsets.UTF_8);
+            return Optional.of(new DataBodyChunkEntity(id.getDataBodyContentId(), id.getChunkIndex(), data, data.length));
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        dataBodyService.writeDataBody(dataBody, out);
+
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("chunk-0;chunk-1;");
+    }
+
+    @Test
+    public void shouldUpdateBlockTypeOfDistinctNamesInChunks(){
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            names.add("NAME-" + i);
+        }
+        names.add("NAME-0");
+        when(dataHeaderRepositoryMock.updateBlocktypeByNameIn(anyCollection(), eq(BlockTypeEnum.BLOCKTYPEB)))
+                .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+        int updated = dataBodyService.updateBlockTypeByNames(names, BlockTypeEnum.BLOCKTYPEB);
+
+        assertThat(updated).isEqualTo(1500);
+        verify(dataHeaderRepositoryMock, times(2)).updateBlocktypeByNameIn(anyCollection(), eq(BlockTypeEnum.BLOCKTYPEB));
+    }
+
+    @Test
+    public void shouldDetachEachStreamedDataBodyEntity(){
+        when(dataStoreRepositoryMock.streamByDataHeaderEntityBlocktype(eq(BlockTypeEnum.BLOCKTYPEA)))
+                .thenReturn(Stream.of(expectedDataBodyEntity, expectedDataBodyEntity));
+        List<DataBodyEntity> consumed = new ArrayList<>();
+
+        long count = dataBodyService.forEachByBlockType(BlockTypeEnum.BLOCKTYPEA, consumed::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(consumed).hasSize(2);
+        verify(entityManagerMock, times(2)).detach(eq(expectedDataBodyEntity));
+    }
+
+    private void assignContentIds() {
+        long[] nextId = {1};
+        doAnswer(invocation -> {
+            invocation.<DataBodyContentEntity>getArgument(0).setDataBodyContentId(nextId[0]++);
+            return null;
+        }).when(entityManagerMock).persist(any(DataBodyContentEntity.class));
+    }
+
+    private static DataBodyEntity dataBody(String body) {
+        DataBodyEntity dataBody = new DataBodyEntity();
+        dataBody.setDataBody(body);
+        return dataBody;
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String incompressible(int length) {
+        StringBuilder body = new StringBuilder(length);
+        new Random(1).ints(length, '!', '~' + 1).forEach(c -> body.append((char) c));
+        return body.toString();
     }
 
 }
@@ -0,0 +1,182 @@
+package com.db.dataplatform.techtest.service;
+
+import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
+import com.db.dataplatform.techtest.server.api.model.StreamedDataBody;
+import com.db.dataplatform.techtest.server.persistence.OutboxStatusEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
+import com.db.dataplatform.techtest.server.persistence.model.HadoopOutboxEntity;
+import com.db.dataplatform.techtest.server.persistence.repository.HadoopOutboxRepository;
+import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
+import com.db.dataplatform.techtest.server.service.impl.HadoopOutboxServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static com.db.dataplatform.techtest.TestDataHelper.DUMMY_DATA;
+import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HadoopOutboxServiceTests {
+
+    @Mock
+    private HadoopOutboxRepository hadoopOutboxRepositoryMock;
+
+    @Mock
+    private DataBodyService dataBodyServiceMock;
+
+    private HadoopOutboxService hadoopOutboxService;
+    private DataEnvelope testDataEnvelope;
+
+    @Before
+    public void setup() {
+        testDataEnvelope = createTestDataEnvelopeApiObject();
+
+        hadoopOutboxService = new HadoopOutboxServiceImpl(hadoopOutboxRepositoryMock, dataBodyServiceMock,
+                new ObjectMapper());
+    }
+
+    @Test
+    public void shouldStoreEnvelopeAsReadablePayload() throws IOException {
+        ArgumentCaptor<HadoopOutboxEntity> captor = ArgumentCaptor.forClass(HadoopOutboxEntity.class);
+
+        hadoopOutboxService.enqueue(testDataEnvelope);
+
+        verify(hadoopOutboxRepositoryMock, times(1)).save(captor.capture());
+        HadoopOutboxEntity entry = captor.getValue();
+        assertThat(entry.getDataHeaderName()).isEqualTo(testDataEnvelope.getDataHeader().getName());
+
+        DataEnvelope payload = hadoopOutboxService.readPayload(entry);
+        assertThat(payload.getChecksum()).isEqualTo(testDataEnvelope.getChecksum());
+        assertThat(payload.getDataBody().getDataBody()).isEqualTo(testDataEnvelope.getDataBody().getDataBody());
+    }
+
+    @Test
+    public void shouldQueueStreamedDataBodyByReference() throws IOException {
+        String name = testDataEnvelope.getDataHeader().getName();
+        DataEnvelope streamed = new DataEnvelope(testDataEnvelope.getDataHeader(), new StreamedDataBody(() -> {
+            throw new AssertionError("Data body read while queued");
+        }), testDataEnvelope.getChecksum());
+        DataBodyEntity stored = new DataBodyEntity();
+        when(dataBodyServiceMock.getDataByBlockName(name)).thenReturn(Optional.of(stored));
+        when(dataBodyServiceMock.openDataBody(stored)).thenAnswer(invocation ->
+                new ByteArrayInputStream(DUMMY_DATA.getBytes(StandardCharsets.UTF_8)));
+        ArgumentCaptor<HadoopOutboxEntity> captor = ArgumentCaptor.forClass(HadoopOutboxEntity.class);
+
+        hadoopOutboxService.enqueue(streamed);
+
+        verify(hadoopOutboxRepositoryMock, times(1)).save(captor.capture());
+        HadoopOutboxEntity entry = captor.getValue();
+        assertThat(entry.isBodyStored()).isTrue();
+
+        DataEnvelope payload = hadoopOutboxService.readPayload(entry);
+        assertThat(payload.getChecksum()).isEqualTo(testDataEnvelope.getChecksum());
+        assertThat(new ObjectMapper().writeValueAsString(payload.getDataBody()))
+                .isEqualTo(new ObjectMapper().writeValueAsString(testDataEnvelope.getDataBody()));
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() {
+        HadoopOutboxEntity entry = new HadoopOutboxEntity();
+        entry.setHadoopOutboxId(1L);
+        entry.setAttempts(2);
+        when(hadoopOutboxRepositoryMock.findById(1L)).thenReturn(Optional.of(entry));
+
+        hadoopOutboxService.markFailed(entry, 3, Duration.ofSeconds(1));
+
+        assertThat(entry.getAttempts()).isEqualTo(3);
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatusEnum.FAILED);
+        verify(hadoopOutboxRepositoryMock, times(1)).save(entry);
+    }
+
+    @Test
+    public void shouldRetryBeforeMaxAttempts() {
+        HadoopOutboxEntity entry = new HadoopOutboxEntity();
+        entry.setHadoopOutboxId(1L);
+        when(hadoopOutboxRepositoryMock.findById(1L)).thenReturn(Optional.of(entry));
+
+        hadoopOutboxService.markFailed(entry, 3, Duration.ofSeconds(1));
+
+        assertThat(entry.getAttempts()).isEqualTo(1);
+        assertThat(entry.getStatus()).isEqualTo(OutboxStatusEnum.PENDING);
+        assertThat(entry.getNextAttemptTimestamp()).isNotNull();
+    }
+
+    @Test
+    public void shouldHoldBackPartialBatchUntilMaxDelay() {
+        HadoopOutboxEntity entry = dueEntry(1L, Instant.now());
+        when(hadoopOutboxRepositoryMock.findByStatusAndNextAttemptTimestampLessThanEqualOrderByHadoopOutboxIdAsc(
+                eq(OutboxStatusEnum.PENDING), any(), any())).thenReturn(Collections.singletonList(entry));
+
+        List<HadoopOutboxEntity> claimed = hadoopOutboxService.claimBatch(10, 5, Duration.ofMinutes(1));
+
+        assertThat(claimed).isEmpty();
+        verify(hadoopOutboxRepositoryMock, never()).transition(any(), any(), any(), any());
+    }
+
+    @Test
+    public void shouldClaimPartialBatchAfterMaxDelay() {
+        HadoopOutboxEntity entry = dueEntry(1L, Instant.now().minus(Duration.ofMinutes(2)));
+        when(hadoopOutboxRepositoryMock.findByStatusAndNextAttemptTimestampLessThanEqualOrderByHadoopOutboxIdAsc(
+                eq(OutboxStatusEnum.PENDING), any(), any())).thenReturn(Collections.singletonList(entry));
+        when(hadoopOutboxRepositoryMock.transition(eq(1L), eq(OutboxStatusEnum.PENDING), eq(OutboxStatusEnum.IN_FLIGHT),
+                any())).thenReturn(1);
+
+        List<HadoopOutboxEntity> claimed = hadoopOutboxService.claimBatch(10, 5, Duration.ofMinutes(1));
+
+        assertThat(claimed).containsExactly(entry);
+        assertThat(entry.getClaimedTimestamp()).isNotNull();
+    }
+
+    @Test
+    public void shouldDeleteDeliveredEntryOnlyWhileStillClaimed() {
+        Instant claimed = Instant.now();
+        HadoopOutboxEntity entry = dueEntry(1L, claimed);
+        entry.setClaimedTimestamp(claimed);
+        when(hadoopOutboxRepositoryMock.deleteClaimed(1L, claimed)).thenReturn(1);
+
+        hadoopOutboxService.markDelivered(entry);
+
+        verify(hadoopOutboxRepositoryMock, times(1)).deleteClaimed(1L, claimed);
+        verify(hadoopOutboxRepositoryMock, never()).deleteById(any());
+    }
+
+    @Test
+    public void shouldIgnoreEntryDeliveredByAnotherWorker() {
+        Instant claimed = Instant.now();
+        HadoopOutboxEntity entry = dueEntry(1L, claimed);
+        entry.setClaimedTimestamp(claimed);
+        when(hadoopOutboxRepositoryMock.deleteClaimed(1L, claimed)).thenReturn(0);
+
+        hadoopOutboxService.markDelivered(entry);
+
+        verify(hadoopOutboxRepositoryMock, times(1)).deleteClaimed(1L, claimed);
+    }
+
+    private static HadoopOutboxEntity dueEntry(long id, Instant nextAttemptTimestamp) {
+        HadoopOutboxEntity entry = new HadoopOutboxEntity();
+        entry.setHadoopOutboxId(id);
+        entry.setNextAttemptTimestamp(nextAttemptTimestamp);
+        return entry;
+    }
+}
@@ -1,29 +1,51 @@
 package com.db.dataplatform.techtest.service;
 
 import com.db.dataplatform.techtest.TestDataHelper;
+import com.db.dataplatform.techtest.server.api.model.DataBody;
 import com.db.dataplatform.techtest.server.api.model.DataEnvelope;
-import com.db.dataplatform.techtest.server.component.BigDataClient;
+import com.db.dataplatform.techtest.server.api.model.DataEnvelopePage;
+import com.db.dataplatform.techtest.server.api.model.DataHeader;
+import com.db.dataplatform.techtest.server.api.model.PushDataResult;
+import com.db.dataplatform.techtest.server.api.model.PushDataStatusEnum;
+import com.db.dataplatform.techtest.server.api.model.StreamedDataBody;
+import com.db.dataplatform.techtest.server.checksum.ChecksumAlgorithmEnum;
+import com.db.dataplatform.techtest.server.checksum.ChecksumCalculator;
+import com.db.dataplatform.techtest.server.component.ServerMetrics;
+import com.db.dataplatform.techtest.server.component.StoredDataBody;
+import com.db.dataplatform.techtest.server.exception.ChecksumMismatchException;
 import com.db.dataplatform.techtest.server.exception.EntityNotFoundException;
-import com.db.dataplatform.techtest.server.exception.HadoopClientException;
-import com.db.dataplatform.techtest.server.mapper.ServerMapperConfiguration;
+import com.db.dataplatform.techtest.server.exception.InvalidPageTokenException;
+import com.db.dataplatform.techtest.server.mapper.DataEnvelopeMapper;
 import com.db.dataplatform.techtest.server.persistence.BlockTypeEnum;
+import com.db.dataplatform.techtest.server.persistence.model.DataBodyContentEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataBodyEntity;
 import com.db.dataplatform.techtest.server.persistence.model.DataHeaderEntity;
 import com.db.dataplatform.techtest.server.service.DataBodyService;
+import com.db.dataplatform.techtest.server.service.HadoopOutboxService;
 import com.db.dataplatform.techtest.server.component.Server;
 import com.db.dataplatform.techtest.server.component.impl.ServerImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.modelmapper.ModelMapper;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.db.dataplatform.techtest.TestDataHelper.createTestDataEnvelopeApiObject;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -43,71 +65,158 @@ public class ServerServiceTests {
     private Server server;
 
     @Mock
-    private BigDataClient bigDataClient;
+    private HadoopOutboxService hadoopOutboxServiceMock;
 
 
+    private SimpleMeterRegistry meterRegistry;
+
     @Before
     public void setup() {
-        ServerMapperConfiguration serverMapperConfiguration = new ServerMapperConfiguration();
-        ModelMapper modelMapper = serverMapperConfiguration.createModelMapperBean();
+        meterRegistry = new SimpleMeterRegistry();
+        DataEnvelopeMapper dataEnvelopeMapper = new DataEnvelopeMapper();
 
         testDataEnvelope = createTestDataEnvelopeApiObject();
-        expectedDataBodyEntity = modelMapper.map(testDataEnvelope.getDataBody(), DataBodyEntity.class);
-        expectedDataBodyEntity.setDataHeaderEntity(modelMapper.map(testDataEnvelope.getDataHeader(), DataHeaderEntity.class));
+        expectedDataBodyEntity = dataEnvelopeMapper.toEntity(testDataEnvelope);
 
-        server = new ServerImpl(dataBodyServiceImplMock, modelMapper, bigDataClient);
+        server = new ServerImpl(dataBodyServiceImplMock, dataEnvelopeMapper, hadoopOutboxServiceMock, new ChecksumCalculator(),
+                new ServerMetrics(meterRegistry));
     }
 
     @Test
-    public void shouldSaveDataEnvelopeAsExpected() throws NoSuchAlgorithmException, IOException, HadoopClientException {
-        boolean success = server.saveDataEnvelope(testDataEnvelope);
+    public void shouldSaveDataEnvelopeAsExpected() throws NoSuchAlgorithmException, IOException {
+        PushDataStatusEnum status = server.saveDataEnvelope(testDataEnvelope);
 
-        assertThat(success).isTrue();
+        assertThat(status).isEqualTo(PushDataStatusEnum.CREATED);
         verify(dataBodyServiceImplMock, times(1)).saveDataBody(eq(expectedDataBodyEntity));
     }
 
     @Test
-    public void shouldNotSaveUnmatchedChecksumDataEnvelope() throws NoSuchAlgorithmException, IOException, HadoopClientException {
+    public void shouldAnswerDuplicateDataEnvelopeWithoutSaving() throws IOException {
+        String name = testDataEnvelope.getDataHeader().getName();
+        when(dataBodyServiceImplMock.findExistingNames(eq(Collections.singletonList(name))))
+                .thenReturn(Collections.singleton(name));
+
+        PushDataStatusEnum status = server.saveDataEnvelope(testDataEnvelope);
+
+        assertThat(status).isEqualTo(PushDataStatusEnum.DUPLICATE);
+        verify(dataBodyServiceImplMock, never()).saveDataBody(any());
+        verify(hadoopOutboxServiceMock, never()).enqueue(any());
+        assertThat(meterRegistry.get(ServerMetrics.INGEST_ENVELOPES).tag("status", "DUPLICATE").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(ServerMetrics.INGEST_LATENCY).tag("status", "DUPLICATE").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get(ServerMetrics.INGEST_LATENCY).tag("status", "CREATED").timer().count())
+                .isZero();
+        assertThat(meterRegistry.get(ServerMetrics.INGEST_STAGE).tag("stage", "checksum").timer().count()).isZero();
+    }
+
+    @Test
+    public void shouldNotSaveUnmatchedChecksumDataEnvelope() throws NoSuchAlgorithmException, IOException {
         DataEnvelope dataEnvelope = new DataEnvelope(testDataEnvelope.getDataHeader(), testDataEnvelope.getDataBody(),
                 "");
 
-        boolean success = server.saveDataEnvelope(dataEnvelope);
-        assertThat(success).isFalse();
+        PushDataStatusEnum status = server.saveDataEnvelope(dataEnvelope);
+        assertThat(status).isEqualTo(PushDataStatusEnum.CHECKSUM_MISMATCH);
 
         verify(dataBodyServiceImplMock, times(0)).saveDataBody(eq(expectedDataBodyEntity));
+        verify(hadoopOutboxServiceMock, never()).enqueue(any());
+        assertThat(meterRegistry.get(ServerMetrics.INGEST_CHECKSUM_MISMATCH).tag("algorithm", "MD5").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void shouldTimeEachIngestStage() throws IOException {
+        server.saveDataEnvelope(testDataEnvelope);
+
+        for (String stage : Arrays.asList("duplicate-check", "checksum", "mapping", "persist", "enqueue")) {
+            assertThat(meterRegistry.get(ServerMetrics.INGEST_STAGE).tag("stage", stage).timer().count()).isEqualTo(1);
+        }
     }
 
     @Test
-    public void shouldThroughBigDataExceptionWhilePush() throws HadoopClientException {
-        doThrow(HadoopClientException.class).when(bigDataClient).pushBigData(testDataEnvelope);
-        assertThatThrownBy(() -> server.saveDataEnvelope(testDataEnvelope))
-                .isInstanceOf(HadoopClientException.class);
+    public void shouldQueueHadoopPushWithPersistedData() throws NoSuchAlgorithmException, IOException {
+        server.saveDataEnvelope(testDataEnvelope);
 
         verify(dataBodyServiceImplMock, times(1)).saveDataBody(eq(expectedDataBodyEntity));
-        verify(bigDataClient, times(1)).pushBigData(eq(testDataEnvelope));
+        verify(hadoopOutboxServiceMock, times(1)).enqueue(eq(testDataEnvelope));
+    }
+
+    @Test
+    public void shouldVerifyChecksumWithAlgorithmChosenByClient() throws NoSuchAlgorithmException, IOException {
+        String body = testDataEnvelope.getDataBody().getDataBody();
+        String crc32c = new ChecksumCalculator().checksum(body, ChecksumAlgorithmEnum.CRC32C);
+        DataEnvelope dataEnvelope = new DataEnvelope(testDataEnvelope.getDataHeader(), testDataEnvelope.getDataBody(),
+                crc32c, ChecksumAlgorithmEnum.CRC32C);
+
+        assertThat(server.saveDataEnvelope(dataEnvelope)).isEqualTo(PushDataStatusEnum.CREATED);
+        assertThat(server.saveDataEnvelope(new DataEnvelope(testDataEnvelope.getDataHeader(),
+                testDataEnvelope.getDataBody(), crc32c))).isEqualTo(PushDataStatusEnum.CHECKSUM_MISMATCH);
+    }
+
+    @Test
+    public void shouldSaveOnlyMatchingEnvelopesOfBatch() throws NoSuchAlgorithmException {
+        DataEnvelope unmatched = new DataEnvelope(new DataHeader("OTHER", BlockTypeEnum.BLOCKTYPEA),
+                testDataEnvelope.getDataBody(), "");
+
+        List<PushDataResult> results = server.saveDataEnvelopes(Arrays.asList(testDataEnvelope, unmatched));
+
+        assertThat(results).extracting(PushDataResult::getStatus)
+                .containsExactly(PushDataStatusEnum.CREATED, PushDataStatusEnum.CHECKSUM_MISMATCH);
+        verify(dataBodyServiceImplMock, times(1)).saveDataBodies(eq(Collections.singletonList(expectedDataBodyEntity)));
+        verify(hadoopOutboxServiceMock, times(1)).enqueueAll(eq(Collections.singletonList(testDataEnvelope)));
+        verify(dataBodyServiceImplMock, never()).saveDataBody(any());
+    }
+
+    @Test
+    public void shouldAnswerStoredAndRepeatedNamesOfBatchAsDuplicates() {
+        DataEnvelope stored = new DataEnvelope(new DataHeader("STORED", BlockTypeEnum.BLOCKTYPEA),
+                testDataEnvelope.getDataBody(), testDataEnvelope.getChecksum());
+        when(dataBodyServiceImplMock.findExistingNames(any())).thenReturn(Collections.singleton("STORED"));
+
+        List<PushDataResult> results = server.saveDataEnvelopes(Arrays.asList(testDataEnvelope, stored, testDataEnvelope));
+
+        assertThat(results).extracting(PushDataResult::getStatus).containsExactly(PushDataStatusEnum.CREATED,
+                PushDataStatusEnum.DUPLICATE, PushDataStatusEnum.DUPLICATE);
+        verify(dataBodyServiceImplMock, times(1)).findExistingNames(any());
+        verify(dataBodyServiceImplMock, times(1)).saveDataBodies(eq(Collections.singletonList(expectedDataBodyEntity)));
+        assertThat(meterRegistry.get(ServerMetrics.INGEST_ENVELOPES).tag("status", "DUPLICATE").counter().count())
+                .isEqualTo(2);
     }
 
     @Test
     public void shouldUpdateDataEnvelopAsExpected() throws EntityNotFoundException {
 
         String name = testDataEnvelope.getDataHeader().getName();
-        when(dataBodyServiceImplMock.getDataByBlockName(name)).thenReturn(Optional.of(expectedDataBodyEntity));
+        when(dataBodyServiceImplMock.updateBlockTypeByNames(Collections.singletonList(name), BlockTypeEnum.BLOCKTYPEB))
+                .thenReturn(1);
         boolean success = server.updateDataByName(name, BlockTypeEnum.BLOCKTYPEB);
         assertThat(success).isTrue();
-        verify(dataBodyServiceImplMock, times(1)).saveDataBody(any());
+        verify(dataBodyServiceImplMock, never()).getDataByBlockName(any());
+        verify(dataBodyServiceImplMock, never()).saveDataBody(any());
     }
 
     @Test
     public void shouldThrowExceptionForInvalidName() {
 
         String name = "ABC";
-        when(dataBodyServiceImplMock.getDataByBlockName(name)).thenReturn(Optional.empty());
+        when(dataBodyServiceImplMock.updateBlockTypeByNames(Collections.singletonList(name), BlockTypeEnum.BLOCKTYPEB))
+                .thenReturn(0);
         assertThatThrownBy(() -> server.updateDataByName(name, BlockTypeEnum.BLOCKTYPEB))
                 .isInstanceOf(EntityNotFoundException.class);
 
         verify(dataBodyServiceImplMock, times(0)).saveDataBody(any());
     }
 
+    @Test
+    public void shouldUpdateDataEnvelopesByNames() {
+        List<String> names = Arrays.asList("ABC", "DEF", "GHI");
+        when(dataBodyServiceImplMock.updateBlockTypeByNames(names, BlockTypeEnum.BLOCKTYPEB)).thenReturn(2);
+
+        int updated = server.updateDataByNames(names, BlockTypeEnum.BLOCKTYPEB);
+
+        assertThat(updated).isEqualTo(2);
+    }
+
     @Test
     public void shouldQueryDataAsExpected() {
         when(dataBodyServiceImplMock.getDataByBlockType(eq(BlockTypeEnum.BLOCKTYPEB)))
@@ -117,6 +226,192 @@ public class ServerServiceTests {
         assertThat(dataEnvelopByBlocktype.get(0).getDataBody().getDataBody()).isEqualTo(TestDataHelper.DUMMY_DATA);
         verify(dataBodyServiceImplMock, times(1))
                 .getDataByBlockType(eq(BlockTypeEnum.BLOCKTYPEB));
+        assertThat(meterRegistry.get(ServerMetrics.QUERY_RESULT_SIZE).tag("query", "list").summary().totalAmount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void shouldPageDataByKeyset() throws InvalidPageTokenException {
+        DataBodyEntity first = pagedEntity(11L);
+        DataBodyEntity second = pagedEntity(12L);
+        when(dataBodyServiceImplMock.getDataByBlockTypeAfter(eq(BlockTypeEnum.BLOCKTYPEB), eq(0L), eq(2)))
+                .thenReturn(Arrays.asList(first, second));
+        when(dataBodyServiceImplMock.getDataByBlockTypeAfter(eq(BlockTypeEnum.BLOCKTYPEB), eq(11L), eq(2)))
+                .thenReturn(Collections.singletonList(second));
+
+        DataEnvelopePage firstPage = server.getDataByBlockType(BlockTypeEnum.BLOCKTYPEB, 1, null);
+        DataEnvelopePage lastPage = server.getDataByBlockType(BlockTypeEnum.BLOCKTYPEB, 1, firstPage.getNextPageToken());
+
+        assertThat(firstPage.getDataEnvelopes()).hasSize(1);
+        assertThat(firstPage.getNextPageToken()).isNotNull();
+        assertThat(lastPage.getDataEnvelopes()).hasSize(1);
+        assertThat(lastPage.getNextPageToken()).isNull();
+    }
+
+    @Test
+    public void shouldRejectPageTokenOfOtherBlockType() throws InvalidPageTokenException {
+        when(dataBodyServiceImplMock.getDataByBlockTypeAfter(eq(BlockTypeEnum.BLOCKTYPEA), eq(0L), eq(2)))
+                .thenReturn(Arrays.asList(pagedEntity(1L), pagedEntity(2L)));
+        String pageToken = server.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 1, null).getNextPageToken();
+
+        assertThatThrownBy(() -> server.getDataByBlockType(BlockTypeEnum.BLOCKTYPEB, 1, pageToken))
+                .isInstanceOf(InvalidPageTokenException.class);
+        assertThatThrownBy(() -> server.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 1, "not-a-token"))
+                .isInstanceOf(InvalidPageTokenException.class);
+    }
+
+    @Test
+    public void shouldStreamDataAsExpected() {
+        when(dataBodyServiceImplMock.forEachByBlockType(eq(BlockTypeEnum.BLOCKTYPEB), any())).thenAnswer(invocation -> {
+            Consumer<DataBodyEntity> consumer = invocation.getArgument(1);
+            consumer.accept(expectedDataBodyEntity);
+            return 1L;
+        });
+        List<DataEnvelope> streamed = new ArrayList<>();
+
+        long count = server.streamDataByBlockType(BlockTypeEnum.BLOCKTYPEB, streamed::add);
+
+        assertThat(count).isEqualTo(1);
+        assertThat(streamed).hasSize(1);
+        assertThat(streamed.get(0).getDataBody().getDataBody()).isEqualTo(TestDataHelper.DUMMY_DATA);
+    }
+
+    @Test
+    public void shouldVerifyChecksumOfStreamedDataBodyAsItIsStored() throws Exception {
+        doAnswer(invocation -> drain(invocation.getArgument(1)))
+                .when(dataBodyServiceImplMock).saveDataBody(any(DataBodyEntity.class), any(InputStream.class));
+
+        server.saveDataStream(testDataEnvelope.getDataHeader(), dummyDataStream(), null, testDataEnvelope.getChecksum());
+
+        verify(dataBodyServiceImplMock).saveDataBody(any(DataBodyEntity.class), any(InputStream.class));
+    }
+
+    @Test
+    public void shouldQueueHadoopPushOfStreamedDataBody() throws Exception {
+        DataBodyEntity chunked = chunkedEntity();
+        doAnswer(invocation -> {
+            DataBodyEntity dataBodyEntity = invocation.getArgument(0);
+            dataBodyEntity.setContent(chunked.getContent());
+            return drain(invocation.getArgument(1));
+        }).when(dataBodyServiceImplMock).saveDataBody(any(DataBodyEntity.class), any(InputStream.class));
+        openChunkedBody();
+        ArgumentCaptor<DataEnvelope> queued = ArgumentCaptor.forClass(DataEnvelope.class);
+
+        server.saveDataStream(testDataEnvelope.getDataHeader(), dummyDataStream(), null, testDataEnvelope.getChecksum());
+
+        verify(hadoopOutboxServiceMock).enqueue(queued.capture());
+        assertThat(queued.getValue().getDataHeader().getName()).isEqualTo(testDataEnvelope.getDataHeader().getName());
+        assertThat(queued.getValue().getDataBody()).isInstanceOf(StreamedDataBody.class);
+        assertThat(serialized(queued.getValue().getDataBody())).isEqualTo(serialized(testDataEnvelope.getDataBody()));
+        assertThat(queued.getValue().getChecksum()).isEqualTo(testDataEnvelope.getChecksum());
+    }
+
+    @Test
+    public void shouldStreamChunkedDataBodiesOfPageAndStreamFromTheStore() throws Exception {
+        DataBodyEntity chunked = chunkedEntity();
+        openChunkedBody();
+        when(dataBodyServiceImplMock.getDataByBlockTypeAfter(eq(BlockTypeEnum.BLOCKTYPEA), eq(0L), eq(11)))
+                .thenReturn(Collections.singletonList(chunked));
+        when(dataBodyServiceImplMock.forEachByBlockType(eq(BlockTypeEnum.BLOCKTYPEA), any())).thenAnswer(invocation -> {
+            Consumer<DataBodyEntity> consumer = invocation.getArgument(1);
+            consumer.accept(chunked);
+            return 1L;
+        });
+        List<DataEnvelope> streamed = new ArrayList<>();
+
+        DataEnvelopePage page = server.getDataByBlockType(BlockTypeEnum.BLOCKTYPEA, 10, null);
+        server.streamDataByBlockType(BlockTypeEnum.BLOCKTYPEA, streamed::add);
+
+        assertThat(serialized(page.getDataEnvelopes().get(0).getDataBody()))
+                .isEqualTo(serialized(testDataEnvelope.getDataBody()));
+        assertThat(serialized(streamed.get(0).getDataBody())).isEqualTo(serialized(testDataEnvelope.getDataBody()));
+        verify(dataBodyServiceImplMock, never()).writeDataBody(any(DataBodyEntity.class), any());
+    }
+
+    @Test
+    public void shouldAnswerDuplicateStreamedDataBodyWithoutReadingIt() throws Exception {
+        String name = testDataEnvelope.getDataHeader().getName();
+        when(dataBodyServiceImplMock.findExistingNames(any())).thenReturn(Collections.singleton(name));
+        InputStream dataBody = dummyDataStream();
+
+        PushDataStatusEnum status = server.saveDataStream(testDataEnvelope.getDataHeader(), dataBody, null,
+                testDataEnvelope.getChecksum());
+
+        assertThat(status).isEqualTo(PushDataStatusEnum.DUPLICATE);
+        assertThat(dataBody.available()).isEqualTo(TestDataHelper.DUMMY_DATA.length());
+        verify(dataBodyServiceImplMock, never()).saveDataBody(any(DataBodyEntity.class), any(InputStream.class));
+    }
+
+    @Test
+    public void shouldRejectStreamedDataBodyWithUnmatchedChecksum() throws IOException {
+        doAnswer(invocation -> drain(invocation.getArgument(1)))
+                .when(dataBodyServiceImplMock).saveDataBody(any(DataBodyEntity.class), any(InputStream.class));
+
+        assertThatThrownBy(() -> server.saveDataStream(testDataEnvelope.getDataHeader(), dummyDataStream(),
+                ChecksumAlgorithmEnum.CRC32C, testDataEnvelope.getChecksum()))
+                .isInstanceOf(ChecksumMismatchException.class);
+        assertThat(meterRegistry.get(ServerMetrics.INGEST_CHECKSUM_MISMATCH).tag("algorithm", "CRC32C")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldOpenStoredDataBodyByName() throws Exception {
+        String name = testDataEnvelope.getDataHeader().getName();
+        expectedDataBodyEntity.setContent(TestDataHelper.createTestDataBodyContentEntity());
+        when(dataBodyServiceImplMock.getDataByBlockName(eq(name))).thenReturn(Optional.of(expectedDataBodyEntity));
+        doAnswer(invocation -> {
+            ByteArrayOutputStream out = invocation.getArgument(1);
+            out.write(TestDataHelper.DUMMY_DATA.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(dataBodyServiceImplMock).writeDataBody(eq(expectedDataBodyEntity), any());
+
+        StoredDataBody dataBody = server.openDataBody(name);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dataBody.writeTo(out);
+
+        assertThat(dataBody.getLength()).isEqualTo(TestDataHelper.DUMMY_DATA.length());
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(TestDataHelper.DUMMY_DATA);
+    }
+
+    private static InputStream dummyDataStream() {
+        return new ByteArrayInputStream(TestDataHelper.DUMMY_DATA.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[64];
+        while (in.read(buffer) != -1) {
+            // checksummed as read
+        }
+        return null;
+    }
+
+    private DataBodyEntity chunkedEntity() {
+        DataBodyContentEntity content = new DataBodyContentEntity();
+        content.setDataBodyChunks(2);
+        content.setDataBodyBytes(TestDataHelper.DUMMY_DATA.length());
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataHeaderEntity(expectedDataBodyEntity.getDataHeaderEntity());
+        dataBodyEntity.setContent(content);
+        return dataBodyEntity;
+    }
+
+    private void openChunkedBody() {
+        when(dataBodyServiceImplMock.openDataBody(any(DataBodyEntity.class))).thenAnswer(invocation -> dummyDataStream());
+    }
+
+    private static String serialized(DataBody dataBody) throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(dataBody);
+    }
+
+    private DataBodyEntity pagedEntity(long dataHeaderId) {
+        DataHeaderEntity dataHeaderEntity = new DataHeaderEntity();
+        dataHeaderEntity.setDataHeaderId(dataHeaderId);
+        dataHeaderEntity.setName(expectedDataBodyEntity.getDataHeaderEntity().getName());
+        dataHeaderEntity.setBlocktype(expectedDataBodyEntity.getDataHeaderEntity().getBlocktype());
+        DataBodyEntity dataBodyEntity = new DataBodyEntity();
+        dataBodyEntity.setDataBody(expectedDataBodyEntity.getDataBody());
+        dataBodyEntity.setDataHeaderEntity(dataHeaderEntity);
+        return dataBodyEntity;
     }
 
 }